@@ -0,0 +1,114 @@
+#!/bin/bash
+
+# Accept Benchmark
+# Measures PUT /orders throughput, and the latency of GET /orders/{id} issued alongside, against a slow
+# publisher (publisher.simulated-latency-ms), with blocking and with asynchronous order accept.
+# Uses Kafka for both receive and send; start it first with: docker-compose up -d zookeeper kafka
+
+set -e
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+REQUESTS=${REQUESTS:-4000}
+CONCURRENCY=${CONCURRENCY:-400}
+LATENCY_MS=${LATENCY_MS:-200}
+TOMCAT_THREADS=${TOMCAT_THREADS:-200}
+PORT=${PORT:-9191}
+BASE_URL="http://localhost:$PORT"
+RESULTS=()
+
+if [ -z "$(docker ps --filter "label=com.docker.compose.service=kafka" --format '{{.Names}}' | head -n1)" ]; then
+    echo -e "${RED}Kafka container not found. Is docker-compose running?${NC}"
+    exit 1
+fi
+
+put_order() {
+    curl -s -o /dev/null -w "%{http_code}\n" -X PUT "$BASE_URL/orders" \
+        -H "Content-Type: application/json" \
+        -d "{\"id\":$1,\"status\":\"ACCEPTED\",\"timestamp\":\"2025-01-01T00:00:00Z\"}"
+}
+export -f put_order
+export BASE_URL
+
+run() {
+    local label="$1"
+    local async="$2"
+    local log="$PWD/build/accept-benchmark-$label.log"
+    mkdir -p build
+
+    java -jar "$JAR" --receive.protocol=kafka --send.protocol=kafka --server.port="$PORT" \
+        --server.tomcat.threads.max="$TOMCAT_THREADS" \
+        --publisher.simulated-latency-ms="$LATENCY_MS" \
+        --orders.accept.async.enabled="$async" \
+        --orders.accept.async.max-pending="$REQUESTS" > "$log" 2>&1 &
+    local pid=$!
+
+    for _ in $(seq 1 300); do
+        grep -q "Started OrderApiApplication" "$log" && break
+        sleep 0.2
+    done
+
+    # GETs alongside the load; they should not wait behind PUTs held by the slow publisher
+    local probes="$PWD/build/accept-benchmark-$label.get"
+    : > "$probes"
+    (
+        while true; do
+            curl -s -o /dev/null -w "%{time_total}\n" "$BASE_URL/orders/1?status=SHIPPED" >> "$probes"
+            sleep 0.05
+        done
+    ) &
+    local prober=$!
+
+    local started ended statuses
+    started=$(date +%s.%N)
+    statuses=$(seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} bash -c 'put_order {}')
+    ended=$(date +%s.%N)
+
+    kill "$prober" 2>/dev/null || true
+    wait "$prober" 2>/dev/null || true
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+
+    local ok throughput get_p50 get_max
+    ok=$(echo "$statuses" | grep -c "^200$" || true)
+    throughput=$(echo "$REQUESTS $started $ended" | awk '{ printf "%.0f", $1 / ($3 - $2) }')
+    get_p50=$(sort -n "$probes" | awk '{ v[NR] = $1 } END { if (NR) printf "%.0f", v[int((NR + 1) / 2)] * 1000 }')
+    get_max=$(sort -n "$probes" | tail -n1 | awk '{ printf "%.0f", $1 * 1000 }')
+
+    RESULTS+=("$(printf "%-10s %12s %10s %14s %14s" "$label" "$throughput/s" "$ok" "${get_p50:-?} ms" "${get_max:-?} ms")")
+}
+
+echo -e "${GREEN}Building JVM jar...${NC}"
+./gradlew -q bootJar
+JAR="$PWD/build/libs/specmatic-async-sample-1.0.0.jar"
+
+echo -e "${GREEN}$REQUESTS PUTs at concurrency $CONCURRENCY, publisher latency $LATENCY_MS ms, $TOMCAT_THREADS Tomcat threads${NC}"
+run blocking false
+run async true
+
+report() {
+    printf "%-10s %12s %10s %14s %14s\n" "mode" "PUT rate" "PUT 200s" "GET p50" "GET max"
+    for row in "${RESULTS[@]}"; do
+        echo "$row"
+    done
+}
+
+echo ""
+report
+
+# RECORD=true appends the run to benchmark-results/accept.md
+if [ "${RECORD:-false}" = "true" ]; then
+    {
+        echo ""
+        echo "## $(date -u +%Y-%m-%d), $(nproc) CPUs, $(java -version 2>&1 | head -n1)"
+        echo ""
+        echo "$REQUESTS PUTs at concurrency $CONCURRENCY, publisher latency $LATENCY_MS ms, $TOMCAT_THREADS Tomcat threads."
+        echo ""
+        echo '```'
+        report
+        echo '```'
+    } >> benchmark-results/accept.md
+    echo -e "${GREEN}Recorded in benchmark-results/accept.md${NC}"
+fi
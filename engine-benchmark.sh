@@ -0,0 +1,126 @@
+#!/bin/bash
+
+# Engine Benchmark
+# Compares the servlet engine (Spring MVC, blocking accept), the servlet engine with asynchronous accept,
+# and the reactive engine (engine=reactive) against a slow publisher (publisher.simulated-latency-ms):
+#   - PUT /orders throughput at high concurrency
+#   - time to process a backlog of new-orders events seeded on Kafka
+#   - live JVM threads and RSS at the end of the run
+# Uses Kafka for both receive and send; start it first with: docker-compose up -d zookeeper kafka
+
+set -e
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+REQUESTS=${REQUESTS:-10000}
+CONCURRENCY=${CONCURRENCY:-1000}
+EVENTS=${EVENTS:-5000}
+LATENCY_MS=${LATENCY_MS:-100}
+PORT=${PORT:-9191}
+BASE_URL="http://localhost:$PORT"
+RESULTS=()
+
+KAFKA_CONTAINER=$(docker ps --filter "label=com.docker.compose.service=kafka" --format '{{.Names}}' | head -n1)
+if [ -z "$KAFKA_CONTAINER" ]; then
+    echo -e "${RED}Kafka container not found. Is docker-compose running?${NC}"
+    exit 1
+fi
+
+put_order() {
+    curl -s -o /dev/null -w "%{http_code}\n" -X PUT "$BASE_URL/orders" \
+        -H "Content-Type: application/json" \
+        -d "{\"id\":$1,\"status\":\"ACCEPTED\",\"timestamp\":\"2025-01-01T00:00:00Z\"}"
+}
+export -f put_order
+export BASE_URL
+
+# Every run reads new-orders from the earliest offset on a fresh consumer group, so this backlog is there for each of them
+echo "Seeding $EVENTS events on new-orders..."
+seq 1 "$EVENTS" | awk '{ printf "{\"id\":%d,\"orderItems\":[{\"id\":1,\"name\":\"Laptop\",\"quantity\":1,\"price\":1500.0}]}\n", $1 }' | \
+    docker exec -i "$KAFKA_CONTAINER" kafka-console-producer --bootstrap-server localhost:9092 --topic new-orders
+
+run() {
+    local label="$1"
+    shift
+    local log="$PWD/build/engine-benchmark-$label.log"
+    mkdir -p build
+
+    local launched
+    launched=$(date +%s.%N)
+    java -jar "$JAR" --receive.protocol=kafka --send.protocol=kafka --server.port="$PORT" \
+        --publisher.simulated-latency-ms="$LATENCY_MS" \
+        --orders.accept.async.max-pending="$REQUESTS" \
+        --spring.kafka.consumer.group-id="engine-benchmark-$label-$$" \
+        "$@" > "$log" 2>&1 &
+    local pid=$!
+
+    for _ in $(seq 1 300); do
+        grep -q "Started OrderApiApplication" "$log" && break
+        sleep 0.2
+    done
+
+    # backlog: wait until every seeded event has been published to wip-orders
+    local drained=""
+    for _ in $(seq 1 1200); do
+        if [ "$(grep -c "initiated with total amount" "$log" || true)" -ge "$EVENTS" ]; then
+            drained=$(date +%s.%N)
+            break
+        fi
+        sleep 0.1
+    done
+
+    local started ended statuses
+    started=$(date +%s.%N)
+    statuses=$(seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} bash -c 'put_order {}')
+    ended=$(date +%s.%N)
+
+    local threads rss
+    threads=$(ps -o nlwp= -p "$pid" | tr -d ' ')
+    rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+
+    local ok throughput backlog
+    ok=$(echo "$statuses" | grep -c "^200$" || true)
+    throughput=$(echo "$REQUESTS $started $ended" | awk '{ printf "%.0f", $1 / ($3 - $2) }')
+    backlog=$([ -n "$drained" ] && echo "$launched $drained" | awk '{ printf "%.1f s", $2 - $1 }' || echo "timeout")
+
+    RESULTS+=("$(printf "%-16s %12s %10s %16s %9s %10s" "$label" "$throughput/s" "$ok" "$backlog" "$threads" "$((${rss:-0} / 1024)) MB")")
+}
+
+echo -e "${GREEN}Building JVM jar...${NC}"
+./gradlew -q bootJar
+JAR="$PWD/build/libs/specmatic-async-sample-1.0.0.jar"
+
+echo -e "${GREEN}$REQUESTS PUTs at concurrency $CONCURRENCY, $EVENTS backlog events, publisher latency $LATENCY_MS ms${NC}"
+run servlet
+run servlet-async --orders.accept.async.enabled=true
+run reactive --engine=reactive
+
+report() {
+    printf "%-16s %12s %10s %16s %9s %10s\n" "engine" "PUT rate" "PUT 200s" "backlog drained" "threads" "RSS"
+    for row in "${RESULTS[@]}"; do
+        echo "$row"
+    done
+}
+
+echo ""
+report
+
+# RECORD=true appends the run to benchmark-results/engine.md
+if [ "${RECORD:-false}" = "true" ]; then
+    {
+        echo ""
+        echo "## $(date -u +%Y-%m-%d), $(nproc) CPUs, $(java -version 2>&1 | head -n1)"
+        echo ""
+        echo "$REQUESTS PUTs at concurrency $CONCURRENCY, $EVENTS backlog events, publisher latency $LATENCY_MS ms."
+        echo ""
+        echo '```'
+        report
+        echo '```'
+    } >> benchmark-results/engine.md
+    echo -e "${GREEN}Recorded in benchmark-results/engine.md${NC}"
+fi
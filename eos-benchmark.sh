@@ -0,0 +1,124 @@
+#!/bin/bash
+
+# Exactly-Once Benchmark
+# Measures how fast a backlog of new-orders events is processed into wip-orders by the regular Kafka listener
+# and by the exactly-once intake (kafka.exactly-once.enabled) at several transaction batch sizes, and the
+# mean and max time from the first record of a transaction to its commit.
+# Uses Kafka for both receive and send; start it first with: docker-compose up -d zookeeper kafka
+
+set -e
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+EVENTS=${EVENTS:-20000}
+BATCH_SIZES=${BATCH_SIZES:-"1 10 100 1000"}
+BATCH_MS=${BATCH_MS:-100}
+PORT=${PORT:-9191}
+BASE_URL="http://localhost:$PORT"
+RESULTS=()
+
+KAFKA_CONTAINER=$(docker ps --filter "label=com.docker.compose.service=kafka" --format '{{.Names}}' | head -n1)
+if [ -z "$KAFKA_CONTAINER" ]; then
+    echo -e "${RED}Kafka container not found. Is docker-compose running?${NC}"
+    exit 1
+fi
+
+# prints one statistic (COUNT, TOTAL_TIME, MAX) of a meter, 0 when it is not there yet
+metric() {
+    curl -s "$BASE_URL/actuator/metrics/$1${2:+?tag=$2}" | \
+        grep -o "\"statistic\":\"$3\",\"value\":[0-9.E-]*" | sed 's/.*"value"://' || echo 0
+}
+
+# Every run reads new-orders from the earliest offset on a fresh consumer group, so this backlog is there for each of them
+echo "Seeding $EVENTS events on new-orders..."
+seq 1 "$EVENTS" | awk '{ printf "{\"id\":%d,\"orderItems\":[{\"id\":1,\"name\":\"Laptop\",\"quantity\":1,\"price\":1500.0}]}\n", $1 }' | \
+    docker exec -i "$KAFKA_CONTAINER" kafka-console-producer --bootstrap-server localhost:9092 --topic new-orders
+
+run() {
+    local label="$1"
+    local batch_size="$2"
+    shift 2
+    local log="$PWD/build/eos-benchmark-$label.log"
+    mkdir -p build
+
+    java -jar "$JAR" --receive.protocol=kafka --send.protocol=kafka --server.port="$PORT" \
+        --spring.kafka.consumer.group-id="eos-benchmark-$label-$$" \
+        "$@" > "$log" 2>&1 &
+    local pid=$!
+
+    for _ in $(seq 1 300); do
+        grep -q "Started OrderApiApplication" "$log" && break
+        sleep 0.2
+    done
+
+    local started ended="" processed
+    started=$(date +%s.%N)
+    for _ in $(seq 1 6000); do
+        if [ -n "$batch_size" ]; then
+            processed=$(metric kafka.exactly-once.records "" COUNT | cut -d. -f1)
+        else
+            processed=$(grep -c "initiated with total amount" "$log" || true)
+        fi
+        if [ "${processed:-0}" -ge "$EVENTS" ]; then
+            ended=$(date +%s.%N)
+            break
+        fi
+        sleep 0.1
+    done
+
+    local mean="-" max="-"
+    if [ -n "$batch_size" ]; then
+        local count total
+        count=$(metric kafka.exactly-once.transactions outcome:committed COUNT)
+        total=$(metric kafka.exactly-once.transactions outcome:committed TOTAL_TIME)
+        max=$(metric kafka.exactly-once.transactions outcome:committed MAX | awk '{ printf "%.1f ms", $1 * 1000 }')
+        mean=$(echo "$count $total" | awk '{ printf "%.1f ms", $1 > 0 ? $2 * 1000 / $1 : 0 }')
+    fi
+
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+
+    local throughput
+    throughput=$([ -n "$ended" ] && echo "$EVENTS $started $ended" | awk '{ printf "%.0f/s", $1 / ($3 - $2) }' || echo "timeout")
+
+    RESULTS+=("$(printf "%-16s %12s %14s %14s" "$label" "$throughput" "$mean" "$max")")
+}
+
+echo -e "${GREEN}Building JVM jar...${NC}"
+./gradlew -q bootJar
+JAR="$PWD/build/libs/specmatic-async-sample-1.0.0.jar"
+
+echo -e "${GREEN}$EVENTS backlog events, batch sizes $BATCH_SIZES, batch-ms $BATCH_MS${NC}"
+run listener ""
+for size in $BATCH_SIZES; do
+    run "eos-$size" "$size" --kafka.exactly-once.enabled=true \
+        --kafka.exactly-once.batch-size="$size" --kafka.exactly-once.batch-ms="$BATCH_MS" \
+        --kafka.exactly-once.transactional-id="eos-benchmark-$size-$$"
+done
+
+report() {
+    printf "%-16s %12s %14s %14s\n" "mode" "throughput" "mean commit" "max commit"
+    for row in "${RESULTS[@]}"; do
+        echo "$row"
+    done
+}
+
+echo ""
+report
+
+# RECORD=true appends the run to benchmark-results/eos.md
+if [ "${RECORD:-false}" = "true" ]; then
+    {
+        echo ""
+        echo "## $(date -u +%Y-%m-%d), $(nproc) CPUs, $(java -version 2>&1 | head -n1)"
+        echo ""
+        echo "$EVENTS backlog events, batch sizes $BATCH_SIZES, batch-ms $BATCH_MS."
+        echo ""
+        echo '```'
+        report
+        echo '```'
+    } >> benchmark-results/eos.md
+    echo -e "${GREEN}Recorded in benchmark-results/eos.md${NC}"
+fi
@@ -2,6 +2,7 @@ package com.example.orderapi.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.amqp.core.Queue;
@@ -30,6 +31,9 @@ public class AmqpConfig {
     @Value("${channel.out-for-delivery-orders}")
     private String deliveryOrdersChannel;
 
+    @Value("${inbound.retry.dead-letter-channel:${channel.dead-letter-orders}}")
+    private String deadLetterChannel;
+
     @Bean
     public Queue newOrdersQueue() {
         return new Queue(newOrdersChannel, true);
@@ -60,6 +64,12 @@ public class AmqpConfig {
         return new Queue(deliveryOrdersChannel, true);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "inbound.retry.enabled", havingValue = "true")
+    public Queue deadLetterQueue() {
+        return new Queue(deadLetterChannel, true);
+    }
+
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         // Don't set a message converter - use default SimpleMessageConverter
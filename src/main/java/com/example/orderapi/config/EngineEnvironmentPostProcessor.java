@@ -0,0 +1,22 @@
+package com.example.orderapi.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+// engine=reactive runs the HTTP API on WebFlux instead of Spring MVC. Both are on the classpath, where Boot
+// would otherwise always pick MVC, so the web application type is derived from the engine before the
+// context is created; ReactiveEngineConfig then picks Netty over Tomcat. Registered in META-INF/spring.factories.
+public class EngineEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if ("reactive".equals(environment.getProperty("engine")) && !environment.containsProperty("spring.main.web-application-type")) {
+            environment.getPropertySources().addLast(
+                    new MapPropertySource("engine", Map.of("spring.main.web-application-type", "reactive")));
+        }
+    }
+}
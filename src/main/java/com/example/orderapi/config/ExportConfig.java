@@ -0,0 +1,34 @@
+package com.example.orderapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+@Configuration
+@ConditionalOnProperty(name = "engine", havingValue = "servlet", matchIfMissing = true)
+public class ExportConfig implements WebMvcConfigurer {
+
+    // set by a handler whose streaming body may outlive spring.mvc.async.request-timeout, e.g. the export
+    public static final String ASYNC_TIMEOUT_ATTRIBUTE = ExportConfig.class.getName() + ".asyncTimeoutMs";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                // runs before the async context is started, which is when the timeout is applied
+                Object timeoutMs = request.getAttribute(ASYNC_TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (timeoutMs instanceof Long timeout && request instanceof AsyncWebRequest asyncRequest) {
+                    asyncRequest.setTimeout(timeout);
+                }
+            }
+        });
+    }
+}
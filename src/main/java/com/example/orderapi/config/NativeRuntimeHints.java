@@ -0,0 +1,69 @@
+package com.example.orderapi.config;
+
+import com.example.orderapi.controller.OrderController;
+import com.example.orderapi.model.*;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+// Reflection and resource metadata for the GraalVM native image that Spring and the client libraries
+// don't contribute themselves: models bound by our own ObjectMappers and classes loaded by name.
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<String> CLASSES_LOADED_BY_NAME = List.of(
+            // Paho logging and message catalog
+            "org.eclipse.paho.client.mqttv3.logging.JSR47Logger",
+            "org.eclipse.paho.client.mqttv3.internal.ResourceBundleCatalog",
+            // Artemis connector factory and generated log bundles
+            "org.apache.activemq.artemis.core.remoting.impl.netty.NettyConnectorFactory",
+            "org.apache.activemq.artemis.api.core.client.loadbalance.RoundRobinConnectionLoadBalancingPolicy",
+            "org.apache.activemq.artemis.core.client.ActiveMQClientMessageBundle_impl",
+            "org.apache.activemq.artemis.core.client.ActiveMQClientLogger_impl",
+            "org.apache.activemq.artemis.jms.client.ActiveMQJMSClientBundle_impl",
+            "org.apache.activemq.artemis.jms.client.ActiveMQJMSClientLogger_impl",
+            "org.apache.activemq.artemis.logs.ActiveMQUtilBundle_impl",
+            "org.apache.activemq.artemis.logs.ActiveMQUtilLogger_impl",
+            // pure Java LZ4 used by the changelog producer when no native library is available
+            "net.jpountz.lz4.LZ4JavaSafeCompressor",
+            "net.jpountz.lz4.LZ4HCJavaSafeCompressor",
+            "net.jpountz.lz4.LZ4JavaSafeFastDecompressor",
+            "net.jpountz.lz4.LZ4JavaSafeSafeDecompressor",
+            "net.jpountz.xxhash.XXHash32JavaSafe",
+            "net.jpountz.xxhash.StreamingXXHash32JavaSafe$Factory"
+    );
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                Order.class,
+                OrderRequest.class,
+                OrderItem.class,
+                CancelOrderRequest.class,
+                CancellationReference.class,
+                OrderAccepted.class,
+                OutForDelivery.class,
+                OrderPage.class,
+                MessageWrapper.class,
+                OrderAggregate.class,
+                WindowAggregates.class,
+                RateLimit.class,
+                OrderController.OrderUpdateRequest.class);
+
+        for (String className : CLASSES_LOADED_BY_NAME) {
+            hints.reflection().registerType(TypeReference.of(className),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        hints.resources()
+                .registerResourceBundle("org.eclipse.paho.client.mqttv3.internal.nls.logcat")
+                .registerResourceBundle("org.eclipse.paho.client.mqttv3.internal.nls.messages")
+                .registerPattern("kafka/kafka-version.properties")
+                .registerPattern("rabbitmq-amqp-client.properties")
+                .registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors")
+                .registerPattern("software/amazon/awssdk/services/sqs/execution.interceptors");
+    }
+}
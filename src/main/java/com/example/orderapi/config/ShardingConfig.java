@@ -0,0 +1,23 @@
+package com.example.orderapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.server.ConfigurableWebServerFactory;
+import org.springframework.boot.web.server.Http2;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    // peers talk h2c to each other; runs after the server.* customizers so it is not reset by server.http2.enabled
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableWebServerFactory> shardingHttp2Customizer() {
+        return factory -> {
+            Http2 http2 = new Http2();
+            http2.setEnabled(true);
+            factory.setHttp2(http2);
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.orderapi.config;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Drops auto-configuration of transport stacks that neither receive.protocol nor send.protocol selects,
+// before their classes are even loaded. Registered in META-INF/spring.factories.
+public class TransportAutoConfigurationFilter implements AutoConfigurationImportFilter, EnvironmentAware {
+
+    private static final Map<String, List<String>> TRANSPORT_AUTO_CONFIGURATIONS = Map.of(
+            "kafka", List.of(
+                    "org.springframework.boot.autoconfigure.kafka.",
+                    "org.springframework.boot.actuate.autoconfigure.metrics.KafkaMetricsAutoConfiguration"),
+            "sqs", List.of(
+                    "io.awspring.cloud.autoconfigure."),
+            "jms", List.of(
+                    "org.springframework.boot.autoconfigure.jms.",
+                    "org.springframework.boot.actuate.autoconfigure.jms."),
+            "amqp", List.of(
+                    "org.springframework.boot.autoconfigure.amqp.",
+                    "org.springframework.boot.actuate.autoconfigure.amqp.",
+                    "org.springframework.boot.actuate.autoconfigure.metrics.amqp."));
+
+    // MQTT goes through Paho directly; Spring Integration is only on the classpath via spring-integration-mqtt
+    private static final List<String> UNUSED_AUTO_CONFIGURATIONS = List.of(
+            "org.springframework.boot.autoconfigure.integration.",
+            "org.springframework.boot.actuate.autoconfigure.integration.");
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean[] match(String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata) {
+        boolean[] matches = new boolean[autoConfigurationClasses.length];
+        List<String> excludedPrefixes = excludedPrefixes();
+        for (int i = 0; i < autoConfigurationClasses.length; i++) {
+            matches[i] = autoConfigurationClasses[i] == null || !startsWithAny(autoConfigurationClasses[i], excludedPrefixes);
+        }
+        return matches;
+    }
+
+    private List<String> excludedPrefixes() {
+        if (!environment.getProperty("startup.exclude-unused-transports", Boolean.class, false)) {
+            return List.of();
+        }
+
+        Set<String> used = new HashSet<>();
+        used.add(environment.getProperty("receive.protocol", ""));
+        used.add(environment.getProperty("send.protocol", ""));
+        if (environment.getProperty("near-cache.enabled", Boolean.class, false)) {
+            used.add(environment.getProperty("near-cache.transport", environment.getProperty("send.protocol", "")));
+        }
+
+        List<String> excluded = new ArrayList<>(UNUSED_AUTO_CONFIGURATIONS);
+        TRANSPORT_AUTO_CONFIGURATIONS.forEach((transport, prefixes) -> {
+            if (!used.contains(transport)) {
+                excluded.addAll(prefixes);
+            }
+        });
+        return excluded;
+    }
+
+    private boolean startsWithAny(String className, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.model.WindowAggregates;
+import com.example.orderapi.service.OrderAggregator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/orders/aggregates")
+public class OrderAggregatesController {
+
+    @Autowired
+    private OrderAggregator orderAggregator;
+
+    @GetMapping
+    public ResponseEntity<Map<String, WindowAggregates>> getAggregates() {
+        return ResponseEntity.ok(orderAggregator.snapshot());
+    }
+}
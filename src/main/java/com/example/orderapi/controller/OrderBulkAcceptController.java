@@ -0,0 +1,107 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.model.BulkAcceptResult;
+import com.example.orderapi.service.BulkOrderAcceptor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/orders/bulk")
+@ConditionalOnProperty(name = "engine", havingValue = "servlet", matchIfMissing = true)
+public class OrderBulkAcceptController {
+
+    @Autowired
+    private BulkOrderAcceptor bulkOrderAcceptor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectWriter resultWriter = objectMapper.writerFor(BulkAcceptResult.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    @PutMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> acceptOrders(InputStream body) {
+        log.info("Received bulk update request");
+
+        StreamingResponseBody response = outputStream -> {
+            int batchSize = bulkOrderAcceptor.batchSize();
+            int maxLineLength = bulkOrderAcceptor.maxLineLength();
+            long lineNumber = 0;
+            long accepted = 0;
+            // one batch of lines is held at a time; its statuses are written and flushed before the next is read
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                List<String> lines = new ArrayList<>(batchSize);
+                boolean more = true;
+                while (more) {
+                    String line = readLine(reader, maxLineLength);
+                    more = line != null;
+                    if (more) {
+                        lines.add(line);
+                    }
+                    if (lines.size() == batchSize || (!more && !lines.isEmpty())) {
+                        for (BulkAcceptResult result : bulkOrderAcceptor.accept(lines, lineNumber + 1)) {
+                            resultWriter.writeValue(generator, result);
+                            generator.writeRaw('\n');
+                            if (result.getStatus() == 200) {
+                                accepted++;
+                            }
+                        }
+                        generator.flush();
+                        lineNumber += lines.size();
+                        lines.clear();
+                    }
+                }
+            }
+            log.info("Bulk update accepted {} orders from {} lines", accepted, lineNumber);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(response);
+    }
+
+    // like BufferedReader.readLine, but keeps at most maxLength + 1 characters of a line and skips the rest,
+    // so a body without line breaks cannot exhaust memory; the acceptor answers such a line with 413
+    private static String readLine(Reader reader, int maxLength) throws IOException {
+        StringBuilder line = new StringBuilder();
+        boolean cut = false;
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (line.length() <= maxLength) {
+                line.append((char) c);
+            } else {
+                cut = true;
+            }
+        }
+        if (c == -1 && line.isEmpty()) {
+            return null;
+        }
+        int last = line.length() - 1;
+        if (!cut && last >= 0 && line.charAt(last) == '\r') {
+            line.setLength(last);
+        }
+        return line.toString();
+    }
+}
@@ -1,69 +1,165 @@
 package com.example.orderapi.controller;
 
+import com.example.orderapi.messaging.protocol.PublisherUnavailableException;
 import com.example.orderapi.model.Order;
 import com.example.orderapi.model.OrderAccepted;
+import com.example.orderapi.model.OrderPage;
 import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.service.AsyncOrderAcceptor;
+import com.example.orderapi.service.IllegalOrderTransitionException;
 import com.example.orderapi.service.OrderService;
+import com.example.orderapi.store.SerializedOrder;
+import com.example.orderapi.store.shard.ShardUnavailableException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
 @Slf4j
 @RestController
 @RequestMapping("/orders")
+@ConditionalOnProperty(name = "engine", havingValue = "servlet", matchIfMissing = true)
 public class OrderController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private OrderService orderService;
 
+    @Autowired(required = false)
+    private AsyncOrderAcceptor asyncOrderAcceptor;
+
+    @GetMapping
+    public ResponseEntity<OrderPage> getOrdersWith(
+            @RequestParam OrderStatus status,
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        log.info("Received request to list Orders with status '{}' after cursor '{}'", status, cursor);
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Order> orders = orderService.findOrdersByStatus(status, cursor, limit);
+        Integer nextCursor = orders.size() == limit ? orders.get(orders.size() - 1).getId() : null;
+
+        return ResponseEntity.ok(new OrderPage(orders, nextCursor));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderWith(
+    public ResponseEntity<byte[]> getOrderWith(
             @PathVariable Integer id,
             @RequestParam String status
     ) {
         log.info("Received request to find Order with id '{}' and status '{}'", id, status);
         
-        Order order = orderService.getOrder(id);
+        SerializedOrder serialized;
+        try {
+            serialized = orderService.getSerializedOrder(id);
+        } catch (ShardUnavailableException e) {
+            log.error("Could not look up order '{}'", id, e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize order '{}'", id, e);
+            return ResponseEntity.internalServerError().build();
+        }
         
-        if (order == null) {
+        if (serialized == null) {
             log.warn("Order with id '{}' not found", id);
             return ResponseEntity.notFound().build();
         }
         
+        Order order = serialized.getOrder();
         if (!order.getStatus().name().equals(status)) {
             log.warn("Order with id '{}' has status '{}', expected '{}'", id, order.getStatus(), status);
             return ResponseEntity.notFound().build();
         }
         
         log.info("Found order: {}", order);
-        return ResponseEntity.ok(order);
+        return cachedBody(serialized);
+    }
+
+    // the bytes were written when the order was saved; a request whose If-None-Match carries the ETag
+    // is answered with 304 and no body by Spring's ResponseEntity handling
+    static ResponseEntity<byte[]> cachedBody(SerializedOrder serialized) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (serialized.getEtag() != null) {
+            response.eTag(serialized.getEtag());
+        }
+        return response.body(serialized.getJson());
     }
 
     @PutMapping
-    public ResponseEntity<String> updateOrder(@RequestBody OrderUpdateRequest request) {
+    public CompletableFuture<ResponseEntity<String>> updateOrder(@RequestBody OrderUpdateRequest request) {
         log.info("Received update request: {}", request);
-        
+
+        OrderAccepted orderAccepted = new OrderAccepted(
+                request.getId(),
+                request.getStatus(),
+                request.getTimestamp()
+        );
+
+        if (asyncOrderAcceptor == null) {
+            return CompletableFuture.completedFuture(acceptOrder(orderAccepted));
+        }
+
+        // the request thread is released here; the response is written once the publisher acknowledges
+        return asyncOrderAcceptor.accept(orderAccepted)
+                .handle((ignored, failure) -> {
+                    if (failure == null) {
+                        log.info("Order {} update notification sent", request.getId());
+                        return ResponseEntity.ok("Notification triggered.");
+                    }
+                    return acceptFailed(failure instanceof CompletionException ? failure.getCause() : failure);
+                });
+    }
+
+    private ResponseEntity<String> acceptOrder(OrderAccepted orderAccepted) {
         try {
-            OrderAccepted orderAccepted = new OrderAccepted(
-                    request.getId(),
-                    request.getStatus(),
-                    request.getTimestamp()
-            );
-            
             orderService.acceptOrder(orderAccepted);
-            log.info("Order {} update notification sent", request.getId());
+            log.info("Order {} update notification sent", orderAccepted.getId());
             return ResponseEntity.ok("Notification triggered.");
+        } catch (IllegalOrderTransitionException | PublisherUnavailableException e) {
+            return acceptFailed(e);
         } catch (JsonProcessingException e) {
             log.error("Error processing update request", e);
             return ResponseEntity.internalServerError().body("Failed to process update");
         }
     }
 
+    // shared with ReactiveOrderController, so both engines answer a failed accept the same way
+    static ResponseEntity<String> acceptFailed(Throwable failure) {
+        if (failure instanceof IllegalOrderTransitionException) {
+            log.warn("Rejected update request: {}", failure.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(failure.getMessage());
+        }
+        if (failure instanceof PublisherUnavailableException || failure instanceof RejectedExecutionException) {
+            log.warn("Could not send update notification: {}", failure.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(failure.getMessage());
+        }
+        if (failure instanceof TimeoutException) {
+            // the publish carries on and the order stays accepted, so a retry by the client would duplicate it
+            log.warn("Timed out waiting for the publisher to acknowledge the update notification");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body("Accepted, broker acknowledgement pending");
+        }
+        log.error("Error processing update request", failure);
+        return ResponseEntity.internalServerError().body("Failed to process update");
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,84 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.config.ExportConfig;
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.service.OrderService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Slf4j
+@RestController
+@RequestMapping("/orders/export")
+@ConditionalOnProperty(name = "engine", havingValue = "servlet", matchIfMissing = true)
+public class OrderExportController {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${export.flush-every:500}")
+    private int flushEvery;
+
+    @Value("${export.timeout-ms:3600000}")
+    private long timeoutMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectWriter orderWriter = objectMapper.writerFor(Order.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) Integer fromId,
+            @RequestParam(required = false) Integer toId,
+            HttpServletRequest request
+    ) {
+        log.info("Received request to export Orders with status '{}' and ids [{}, {}]", status, fromId, toId);
+
+        if (fromId != null && toId != null && fromId > toId) {
+            return ResponseEntity.badRequest().build();
+        }
+        // only the export may stream for longer than the default async request timeout
+        request.setAttribute(ExportConfig.ASYNC_TIMEOUT_ATTRIBUTE, timeoutMs);
+
+        StreamingResponseBody body = outputStream -> {
+            long written = 0;
+            // Writes block once the socket buffer is full, so a slow reader throttles the iteration itself
+            try (Stream<Order> orders = orderService.streamOrders(status, fromId, toId);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                Iterator<Order> iterator = orders.iterator();
+                while (iterator.hasNext()) {
+                    orderWriter.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                    if (++written % flushEvery == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+            log.info("Exported {} orders", written);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.messaging.streams.OrderStreamsEngine;
+import com.example.orderapi.model.Order;
+import com.example.orderapi.store.shard.ShardUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Serves this instance's part of the Kafka Streams order store to peers presenting the shared kafka.streams.secret
+@RestController
+@RequestMapping("/internal/streams/orders")
+@ConditionalOnExpression("${kafka.streams.enabled:false} and '${receive.protocol}'.equals('kafka') and '${send.protocol}'.equals('kafka')")
+public class OrderStreamsController {
+
+    @Autowired
+    private OrderStreamsEngine orderStreamsEngine;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Order> getLocalOrder(@PathVariable Integer id,
+                                               @RequestHeader(value = OrderStreamsEngine.SECRET_HEADER, required = false) String secret) {
+        if (!orderStreamsEngine.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            Order order = orderStreamsEngine.getLocalOrder(id);
+            return order != null ? ResponseEntity.ok(order) : ResponseEntity.notFound().build();
+        } catch (ShardUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.messaging.inbound.IngressRateLimiter;
+import com.example.orderapi.model.RateLimit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+// Changing a limit requires the inbound.rate-limit.admin-secret; reading them does not
+@Slf4j
+@RestController
+@RequestMapping("/admin/rate-limits")
+@ConditionalOnProperty(name = "inbound.rate-limit.enabled", havingValue = "true")
+public class RateLimitController {
+
+    public static final String SECRET_HEADER = "X-Admin-Secret";
+
+    @Autowired
+    private IngressRateLimiter rateLimiter;
+
+    @Value("${inbound.rate-limit.admin-secret:}")
+    private String secret;
+
+    @PostConstruct
+    public void init() {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("inbound.rate-limit.admin-secret must be set: it authenticates changes under /admin/rate-limits");
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, RateLimit>> getLimits() {
+        return ResponseEntity.ok(rateLimiter.getLimits());
+    }
+
+    @PutMapping("/channels/{channel}")
+    public ResponseEntity<RateLimit> setLimit(@PathVariable String channel, @RequestBody RateLimit limit,
+                                              @RequestHeader(value = SECRET_HEADER, required = false) String presented) {
+        if (!isAuthorized(presented)) {
+            log.warn("Rejected unauthenticated change of the rate limit for '{}'", channel);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!IngressRateLimiter.isValid(limit)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return rateLimiter.setLimit(channel, limit) ? ResponseEntity.ok(limit) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/quota")
+    public ResponseEntity<RateLimit> getQuota() {
+        return ResponseEntity.ok(rateLimiter.getQuota());
+    }
+
+    @PutMapping("/quota")
+    public ResponseEntity<RateLimit> setQuota(@RequestBody RateLimit limit,
+                                              @RequestHeader(value = SECRET_HEADER, required = false) String presented) {
+        if (!isAuthorized(presented)) {
+            log.warn("Rejected unauthenticated change of the per-key quota");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!IngressRateLimiter.isValid(limit)) {
+            return ResponseEntity.badRequest().build();
+        }
+        rateLimiter.setQuota(limit);
+        return ResponseEntity.ok(limit);
+    }
+
+    private boolean isAuthorized(String presented) {
+        return presented != null && MessageDigest.isEqual(
+                presented.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.model.BulkAcceptResult;
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderAccepted;
+import com.example.orderapi.model.OrderPage;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.service.ReactiveOrderService;
+import com.example.orderapi.store.shard.ShardUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The /orders API on WebFlux for engine=reactive; same contract as OrderController and OrderExportController
+@Slf4j
+@RestController
+@RequestMapping("/orders")
+@ConditionalOnProperty(name = "engine", havingValue = "reactive")
+public class ReactiveOrderController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ReactiveOrderService reactiveOrderService;
+
+    @Value("${orders.accept.async.timeout-ms:5000}")
+    private long acceptTimeoutMs;
+
+    @GetMapping
+    public Mono<ResponseEntity<OrderPage>> getOrdersWith(
+            @RequestParam OrderStatus status,
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        log.info("Received request to list Orders with status '{}' after cursor '{}'", status, cursor);
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return reactiveOrderService.findOrdersByStatus(status, cursor, limit)
+                .map(orders -> {
+                    Integer nextCursor = orders.size() == limit ? orders.get(orders.size() - 1).getId() : null;
+                    return ResponseEntity.ok(new OrderPage(orders, nextCursor));
+                });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getOrderWith(
+            @PathVariable Integer id,
+            @RequestParam String status
+    ) {
+        log.info("Received request to find Order with id '{}' and status '{}'", id, status);
+
+        return reactiveOrderService.getSerializedOrder(id)
+                .map(serialized -> {
+                    Order order = serialized.getOrder();
+                    if (!order.getStatus().name().equals(status)) {
+                        log.warn("Order with id '{}' has status '{}', expected '{}'", id, order.getStatus(), status);
+                        return ResponseEntity.notFound().<byte[]>build();
+                    }
+                    return OrderController.cachedBody(serialized);
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(ShardUnavailableException.class, e -> {
+                    log.error("Could not look up order '{}'", id, e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+                });
+    }
+
+    @PutMapping
+    public Mono<ResponseEntity<String>> updateOrder(@RequestBody OrderController.OrderUpdateRequest request) {
+        log.info("Received update request: {}", request);
+
+        OrderAccepted orderAccepted = new OrderAccepted(request.getId(), request.getStatus(), request.getTimestamp());
+        // the pending slot is released by the publish itself, not by this timeout
+        return reactiveOrderService.acceptOrder(orderAccepted)
+                .timeout(Duration.ofMillis(acceptTimeoutMs))
+                .then(Mono.fromCallable(() -> {
+                    log.info("Order {} update notification sent", request.getId());
+                    return ResponseEntity.ok("Notification triggered.");
+                }))
+                .onErrorResume(e -> Mono.just(OrderController.acceptFailed(e)));
+    }
+
+    @PutMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkAcceptResult> acceptOrders(@RequestBody Flux<String> lines) {
+        log.info("Received bulk update request");
+
+        // lines are decoded as they arrive; concatMap asks for the next batch only after this one is published
+        AtomicLong lineNumber = new AtomicLong();
+        return lines.buffer(reactiveOrderService.bulkBatchSize())
+                .concatMap(batch -> reactiveOrderService.acceptBatch(batch, lineNumber.getAndAdd(batch.size()) + 1))
+                .flatMapIterable(results -> results)
+                .doOnComplete(() -> log.info("Bulk update processed {} lines", lineNumber.get()));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<Order>> exportOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) Integer fromId,
+            @RequestParam(required = false) Integer toId
+    ) {
+        log.info("Received request to export Orders with status '{}' and ids [{}, {}]", status, fromId, toId);
+
+        if (fromId != null && toId != null && fromId > toId) {
+            return ResponseEntity.badRequest().build();
+        }
+        // WebFlux writes one line per requested element, so a slow reader throttles the iteration itself
+        return ResponseEntity.ok(reactiveOrderService.streamOrders(status, fromId, toId));
+    }
+}
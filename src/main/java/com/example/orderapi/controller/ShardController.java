@@ -0,0 +1,79 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.store.SerializedOrder;
+import com.example.orderapi.store.shard.ShardClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+// Peer-to-peer endpoints; only instances presenting the shared sharding.secret are served
+@Slf4j
+@RestController
+@RequestMapping("/internal/orders")
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardController {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ShardClient shardClient;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> getLocalOrder(@PathVariable Integer id,
+                                                @RequestHeader(value = ShardClient.SECRET_HEADER, required = false) String secret) {
+        if (!shardClient.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        SerializedOrder serialized = orderService.getLocalSerializedOrder(id);
+        return serialized != null ? OrderController.cachedBody(serialized) : ResponseEntity.notFound().build();
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Void> saveLocalOrder(@PathVariable Integer id, @RequestBody Order order,
+                                               @RequestHeader(value = ShardClient.SECRET_HEADER, required = false) String secret) {
+        if (!shardClient.isAuthorized(secret)) {
+            log.warn("Rejected unauthenticated write of order {}", id);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        log.info("Received order {} from a peer instance", id);
+        orderService.saveLocalOrder(id, order);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Order>> findLocalOrders(@RequestParam OrderStatus status,
+                                                       @RequestParam(required = false) Integer afterId,
+                                                       @RequestParam int limit,
+                                                       @RequestHeader(value = ShardClient.SECRET_HEADER, required = false) String secret) {
+        if (!shardClient.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(orderService.findLocalOrdersByStatus(status, afterId, limit));
+    }
+
+    // a Flux body streams as NDJSON on both engines
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<Order>> exportLocalOrders(@RequestParam(required = false) OrderStatus status,
+                                                         @RequestParam(required = false) Integer fromId,
+                                                         @RequestParam(required = false) Integer toId,
+                                                         @RequestHeader(value = ShardClient.SECRET_HEADER, required = false) String secret) {
+        if (!shardClient.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (fromId != null && toId != null && fromId > toId) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(Flux.fromStream(() -> orderService.streamLocalOrders(status, fromId, toId)));
+    }
+}
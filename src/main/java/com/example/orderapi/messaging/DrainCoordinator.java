@@ -0,0 +1,281 @@
+package com.example.orderapi.messaging;
+
+import com.example.orderapi.messaging.inbound.RetryScheduler;
+import com.example.orderapi.messaging.listener.KafkaExactlyOnceListener;
+import com.example.orderapi.messaging.listener.MqttMessageListener;
+import com.example.orderapi.messaging.outbound.OutboxLog;
+import com.example.orderapi.messaging.protocol.MessagePublisher;
+import com.example.orderapi.messaging.protocol.MessagePublisherDecorator;
+import com.example.orderapi.messaging.protocol.OutboundMessage;
+import com.example.orderapi.messaging.reactive.ReactiveInboundSource;
+import com.example.orderapi.messaging.streams.OrderStreamsEngine;
+import io.awspring.cloud.sqs.listener.MessageListenerContainer;
+import io.awspring.cloud.sqs.listener.MessageListenerContainerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+// Runs on ContextClosedEvent, i.e. before any listener container, executor or client is stopped:
+// readiness is flipped, intake stopped, in-flight events and publishes awaited and pending publishes
+// flushed, all within drain.timeout-ms. The regular shutdown then closes the clients with nothing left in flight.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "drain.enabled", havingValue = "true")
+public class DrainCoordinator implements MessagePublisherDecorator, ApplicationListener<ContextClosedEvent> {
+
+    // outermost, so publishes are counted before they reach the outbox or the circuit breaker
+    public static final int ORDER = 300;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // looked up lazily: the decorator is created before the listener registries and the retry scheduler
+    @Autowired
+    private ObjectProvider<KafkaListenerEndpointRegistry> kafkaListeners;
+
+    @Autowired
+    private ObjectProvider<JmsListenerEndpointRegistry> jmsListeners;
+
+    @Autowired
+    private ObjectProvider<RabbitListenerEndpointRegistry> amqpListeners;
+
+    @Autowired
+    private ObjectProvider<MessageListenerContainerRegistry> sqsListeners;
+
+    @Autowired
+    private ObjectProvider<MqttMessageListener> mqttListener;
+
+    @Autowired
+    private ObjectProvider<ReactiveInboundSource> reactiveSources;
+
+    @Autowired
+    private ObjectProvider<KafkaExactlyOnceListener> exactlyOnceListener;
+
+    @Autowired
+    private ObjectProvider<OrderStreamsEngine> streamsEngine;
+
+    @Autowired
+    private ObjectProvider<RetryScheduler> retryScheduler;
+
+    @Autowired
+    private ObjectProvider<OutboxLog> outboxLog;
+
+    @Value("${drain.timeout-ms:20000}")
+    private long timeoutMs;
+
+    @Value("${drain.poll-interval-ms:10}")
+    private long pollIntervalMs;
+
+    private final AtomicInteger inFlightEvents = new AtomicInteger();
+    private final AtomicInteger inFlightPublishes = new AtomicInteger();
+    private MessagePublisher publisher;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("drain.in-flight", inFlightEvents, AtomicInteger::get)
+                .tag("kind", "event")
+                .description("Inbound events handed to OrderService and not yet completed")
+                .register(meterRegistry);
+        Gauge.builder("drain.in-flight", inFlightPublishes, AtomicInteger::get)
+                .tag("kind", "publish")
+                .description("Publishes not yet returned by the publisher")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public MessagePublisher decorate(MessagePublisher publisher) {
+        this.publisher = publisher;
+        return new MessagePublisher() {
+            @Override
+            public void publish(String channel, String message, String correlationId) {
+                inFlightPublishes.incrementAndGet();
+                try {
+                    publisher.publish(channel, message, correlationId);
+                } finally {
+                    inFlightPublishes.decrementAndGet();
+                }
+            }
+
+            @Override
+            public void publishBatch(List<OutboundMessage> messages) {
+                inFlightPublishes.incrementAndGet();
+                try {
+                    publisher.publishBatch(messages);
+                } finally {
+                    inFlightPublishes.decrementAndGet();
+                }
+            }
+
+            @Override
+            public CompletableFuture<Void> publishAsync(String channel, String message, String correlationId, Executor blockingExecutor) {
+                inFlightPublishes.incrementAndGet();
+                CompletableFuture<Void> published;
+                try {
+                    published = publisher.publishAsync(channel, message, correlationId, blockingExecutor);
+                } catch (RuntimeException e) {
+                    inFlightPublishes.decrementAndGet();
+                    throw e;
+                }
+                return published.whenComplete((ignored, failure) -> inFlightPublishes.decrementAndGet());
+            }
+
+            @Override
+            public void flush() {
+                publisher.flush();
+            }
+        };
+    }
+
+    // counts the event as in flight from hand-off until the returned task has run
+    public Runnable track(Runnable task) {
+        inFlightEvents.incrementAndGet();
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                inFlightEvents.decrementAndGet();
+            }
+        };
+    }
+
+    // for a tracked task whose hand-off failed, so it will never run
+    public void untrack() {
+        inFlightEvents.decrementAndGet();
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        AvailabilityChangeEvent.publish(event.getApplicationContext(), ReadinessState.REFUSING_TRAFFIC);
+        log.info("Draining: readiness set to refusing traffic, stopping intake");
+
+        stopIntake();
+
+        boolean idle = awaitUntil(deadline, this::isIdle);
+        if (!idle) {
+            log.warn("Drain deadline reached with {} events, {} publishes and {} retries still in flight",
+                    inFlightEvents.get(), inFlightPublishes.get(), pendingRetries());
+        }
+
+        boolean flushed = flush(deadline);
+        log.info("Drain {} after {} ms", idle && flushed ? "completed" : "timed out",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private void stopIntake() {
+        // stopping the registries here, rather than in their own lifecycle phase, lets in-flight
+        // events complete and be acknowledged before executors and clients go away
+        stop("Kafka", kafkaListeners.getIfAvailable());
+        stop("JMS", jmsListeners.getIfAvailable());
+        stop("AMQP", amqpListeners.getIfAvailable());
+
+        MessageListenerContainerRegistry sqsRegistry = sqsListeners.getIfAvailable();
+        if (sqsRegistry != null) {
+            for (MessageListenerContainer<?> container : sqsRegistry.getListenerContainers()) {
+                stop("SQS", container);
+            }
+        }
+
+        MqttMessageListener mqtt = mqttListener.getIfAvailable();
+        if (mqtt != null) {
+            mqtt.stopIntake();
+        }
+
+        // each of these returns only once what it had already taken in is processed and acknowledged or committed
+        reactiveSources.orderedStream().forEach(source -> stop(source.getClass().getSimpleName(), source));
+        stop("exactly-once Kafka", exactlyOnceListener.getIfAvailable());
+        stop("Kafka Streams", streamsEngine.getIfAvailable());
+    }
+
+    private void stop(String transport, Lifecycle listeners) {
+        if (listeners == null || !listeners.isRunning()) {
+            return;
+        }
+        try {
+            listeners.stop();
+            log.info("Stopped {} listeners", transport);
+        } catch (Exception e) {
+            log.error("Error stopping {} listeners", transport, e);
+        }
+    }
+
+    private boolean flush(long deadline) {
+        if (publisher != null) {
+            try {
+                publisher.flush();
+            } catch (Exception e) {
+                log.error("Error flushing publisher", e);
+                return false;
+            }
+        }
+
+        OutboxLog outbox = outboxLog.getIfAvailable();
+        if (outbox == null) {
+            return true;
+        }
+        boolean drained = awaitUntil(deadline, () -> {
+            try {
+                return outbox.isDrained();
+            } catch (Exception e) {
+                log.error("Error checking outbox", e);
+                return false;
+            }
+        });
+        if (!drained) {
+            log.warn("Drain deadline reached before the outbox was forwarded, it resumes on next start");
+        }
+        return drained;
+    }
+
+    private boolean isIdle() {
+        return inFlightEvents.get() == 0 && inFlightPublishes.get() == 0 && pendingRetries() == 0;
+    }
+
+    private int pendingRetries() {
+        RetryScheduler retries = retryScheduler.getIfAvailable();
+        return retries != null ? retries.pending() : 0;
+    }
+
+    private boolean awaitUntil(long deadline, BooleanSupplier condition) {
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.orderapi.messaging.inbound;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inbound.concurrency.enabled", havingValue = "true")
+public class AdaptiveConcurrencyLimiter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private ListenerFlowControl flowControl;
+
+    @Value("${inbound.concurrency.initial-limit:10}")
+    private int initialLimit;
+
+    @Value("${inbound.concurrency.min-limit:1}")
+    private int minLimit;
+
+    @Value("${inbound.concurrency.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${inbound.concurrency.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    @Value("${inbound.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${inbound.lanes.enabled:false}")
+    private boolean lanesEnabled;
+
+    @Value("${inbound.sequencing.enabled:false}")
+    private boolean sequencingEnabled;
+
+    private final ConcurrentHashMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+    // container pause/resume may wait for running consumers, so it never runs on a listener or worker thread
+    private final ExecutorService flowControlExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inbound-flow-control");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        if (!lanesEnabled && !sequencingEnabled) {
+            // inline hand-off runs events on the listener threads, so in-flight events could never exceed the container's threads
+            throw new IllegalStateException("inbound.concurrency.enabled requires inbound.lanes.enabled or inbound.sequencing.enabled");
+        }
+    }
+
+    public long acquire(String channel) {
+        Limit limit = limits.computeIfAbsent(channel, this::newLimit);
+        synchronized (limit) {
+            while (limit.inFlight >= (int) limit.limit) {
+                // demand exceeds the limit: stop the transport from fetching more while this thread waits
+                if (!limit.paused) {
+                    limit.paused = true;
+                    limit.pauses.increment();
+                    applyFlowControl(channel, true);
+                }
+                try {
+                    limit.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for capacity on " + channel, e);
+                }
+            }
+            limit.inFlight++;
+        }
+        return System.nanoTime();
+    }
+
+    public void release(String channel, long startedAt, boolean success) {
+        Limit limit = limits.get(channel);
+        long rtt = System.nanoTime() - startedAt;
+        boolean resume;
+        synchronized (limit) {
+            limit.inFlight--;
+            update(limit, rtt, success);
+            resume = limit.paused && limit.inFlight < (int) limit.limit;
+            if (resume) {
+                limit.paused = false;
+            }
+            limit.notifyAll();
+        }
+        if (resume) {
+            applyFlowControl(channel, false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flowControlExecutor.shutdownNow();
+    }
+
+    private void update(Limit limit, long rtt, boolean success) {
+        // the baseline follows improvements at once and degradations only slowly, approximating the no-load latency
+        if (limit.baselineRtt == 0 || rtt < limit.baselineRtt) {
+            limit.baselineRtt = rtt;
+        } else {
+            limit.baselineRtt += (long) ((rtt - limit.baselineRtt) * 0.001);
+        }
+
+        if (!success || rtt > limit.baselineRtt * latencyTolerance) {
+            limit.limit = Math.max(minLimit, limit.limit * backoffRatio);
+        } else if (limit.inFlight * 2 >= limit.limit) {
+            // additive increase of about one slot per limit's worth of completions, only while the limit is in use
+            limit.limit = Math.min(maxLimit, limit.limit + 1.0 / limit.limit);
+        }
+    }
+
+    private void applyFlowControl(String channel, boolean pause) {
+        if (flowControl == null) {
+            return;
+        }
+        flowControlExecutor.execute(() -> {
+            try {
+                if (pause) {
+                    flowControl.pause(channel, ListenerFlowControl.Reason.CONCURRENCY_LIMIT);
+                } else {
+                    flowControl.resume(channel, ListenerFlowControl.Reason.CONCURRENCY_LIMIT);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to {} listener for '{}'", pause ? "pause" : "resume", channel, e);
+            }
+        });
+    }
+
+    private Limit newLimit(String channel) {
+        Limit limit = new Limit(initialLimit);
+        Gauge.builder("inbound.concurrency.limit", limit, l -> l.limit)
+                .tag("channel", channel)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("inbound.concurrency.in-flight", limit, l -> l.inFlight)
+                .tag("channel", channel)
+                .description("Events being processed")
+                .register(meterRegistry);
+        limit.pauses = Counter.builder("inbound.concurrency.pauses")
+                .tag("channel", channel)
+                .description("Times the channel listener was paused at the limit")
+                .register(meterRegistry);
+        log.info("Adaptive concurrency limit for '{}' starts at {}", channel, initialLimit);
+        return limit;
+    }
+
+    private static final class Limit {
+        volatile double limit;
+        volatile int inFlight;
+        long baselineRtt;
+        boolean paused;
+        Counter pauses;
+
+        Limit(int initialLimit) {
+            this.limit = initialLimit;
+        }
+    }
+}
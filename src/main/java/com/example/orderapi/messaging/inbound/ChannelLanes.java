@@ -0,0 +1,245 @@
+package com.example.orderapi.messaging.inbound;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inbound.lanes.enabled", havingValue = "true")
+public class ChannelLanes {
+
+    private static final long IDLE_POLL_MS = 10;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${channel.new-orders}")
+    private String newOrdersChannel;
+
+    @Value("${channel.to-be-cancelled-orders}")
+    private String cancelOrdersChannel;
+
+    @Value("${channel.out-for-delivery-orders}")
+    private String deliveryOrdersChannel;
+
+    @Value("${inbound.lanes.new-orders.threads:4}")
+    private int newOrdersThreads;
+
+    @Value("${inbound.lanes.new-orders.priority:2}")
+    private int newOrdersPriority;
+
+    @Value("${inbound.lanes.new-orders.queue-capacity:1000}")
+    private int newOrdersCapacity;
+
+    @Value("${inbound.lanes.to-be-cancelled-orders.threads:1}")
+    private int cancelOrdersThreads;
+
+    @Value("${inbound.lanes.to-be-cancelled-orders.priority:0}")
+    private int cancelOrdersPriority;
+
+    @Value("${inbound.lanes.to-be-cancelled-orders.queue-capacity:1000}")
+    private int cancelOrdersCapacity;
+
+    @Value("${inbound.lanes.out-for-delivery-orders.threads:2}")
+    private int deliveryOrdersThreads;
+
+    @Value("${inbound.lanes.out-for-delivery-orders.priority:1}")
+    private int deliveryOrdersPriority;
+
+    @Value("${inbound.lanes.out-for-delivery-orders.queue-capacity:1000}")
+    private int deliveryOrdersCapacity;
+
+    @Value("${inbound.lanes.drain-timeout-ms:30000}")
+    private long drainTimeoutMs;
+
+    @Value("${inbound.sequencing.enabled:false}")
+    private boolean sequencingEnabled;
+
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final List<Lane> lanesByPriority = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    // queued events have already been acknowledged to the transport, so shutdown drains them before the workers stop
+    private volatile boolean accepting;
+    private volatile boolean closed;
+    private final AtomicInteger enqueuing = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        if (sequencingEnabled) {
+            // several lane threads would run events of one order concurrently, breaking per-order sequencing
+            throw new IllegalStateException("inbound.lanes.enabled and inbound.sequencing.enabled cannot both be set");
+        }
+        addLane(newOrdersChannel, newOrdersThreads, newOrdersPriority, newOrdersCapacity);
+        addLane(cancelOrdersChannel, cancelOrdersThreads, cancelOrdersPriority, cancelOrdersCapacity);
+        addLane(deliveryOrdersChannel, deliveryOrdersThreads, deliveryOrdersPriority, deliveryOrdersCapacity);
+        lanesByPriority.sort(Comparator.comparingInt(lane -> lane.priority));
+
+        accepting = true;
+        for (Lane lane : lanesByPriority) {
+            for (int i = 0; i < lane.threads; i++) {
+                String name = "lane-" + lane.channel + "-" + i;
+                Thread worker = new Thread(() -> work(lane), name);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+            log.info("Inbound lane '{}' started with {} threads, priority {}, capacity {}",
+                    lane.channel, lane.threads, lane.priority, lane.queue.remainingCapacity());
+        }
+    }
+
+    public void execute(String channel, Runnable task) {
+        Lane lane = lanes.get(channel);
+        if (lane == null) {
+            task.run();
+            return;
+        }
+        enqueuing.incrementAndGet();
+        try {
+            if (!accepting) {
+                // shutting down: the workers may already be gone, so the event is processed on the caller
+                task.run();
+                return;
+            }
+            // a full lane blocks only the listener of its own channel
+            lane.queue.put(new LaneTask(task, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing event on lane " + channel, e);
+        } finally {
+            enqueuing.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        accepting = false;
+        while (enqueuing.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // workers exit once their lane is empty; nothing can be added behind them any more
+        closed = true;
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+
+        int remaining = 0;
+        for (Lane lane : lanesByPriority) {
+            remaining += lane.queue.size();
+        }
+        if (remaining > 0) {
+            // the workers keep running until the JVM exits, but the events are not guaranteed to complete
+            log.error("Inbound lanes did not drain within {} ms, {} acknowledged events still queued", drainTimeoutMs, remaining);
+        } else {
+            log.info("Inbound lanes drained");
+        }
+    }
+
+    private void addLane(String channel, int threads, int priority, int capacity) {
+        Lane lane = new Lane(channel, Math.max(1, threads), priority, new LinkedBlockingQueue<>(capacity));
+        lane.processed = Counter.builder("inbound.lane.processed")
+                .tag("lane", channel)
+                .description("Events processed from the lane, including those run by lower priority workers")
+                .register(meterRegistry);
+        lane.waitTime = Timer.builder("inbound.lane.wait")
+                .tag("lane", channel)
+                .description("Time events spend queued on the lane")
+                .register(meterRegistry);
+        Gauge.builder("inbound.lane.queue.depth", lane.queue, BlockingQueue::size)
+                .tag("lane", channel)
+                .description("Events waiting on the lane")
+                .register(meterRegistry);
+        lanes.put(channel, lane);
+        lanesByPriority.add(lane);
+    }
+
+    private void work(Lane own) {
+        while (true) {
+            // help drain more urgent lanes before taking our own next event
+            if (runMoreUrgent(own)) {
+                continue;
+            }
+            LaneTask task;
+            try {
+                task = own.queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task != null) {
+                run(own, task);
+            } else if (closed) {
+                return;
+            }
+        }
+    }
+
+    private boolean runMoreUrgent(Lane own) {
+        for (Lane lane : lanesByPriority) {
+            if (lane.priority >= own.priority) {
+                return false;
+            }
+            LaneTask task = lane.queue.poll();
+            if (task != null) {
+                run(lane, task);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void run(Lane lane, LaneTask task) {
+        lane.waitTime.record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+        try {
+            task.task.run();
+        } catch (Exception e) {
+            log.error("Error processing event on lane '{}'", lane.channel, e);
+        }
+        lane.processed.increment();
+    }
+
+    private static final class Lane {
+        final String channel;
+        final int threads;
+        final int priority;
+        final BlockingQueue<LaneTask> queue;
+        Counter processed;
+        Timer waitTime;
+
+        Lane(String channel, int threads, int priority, BlockingQueue<LaneTask> queue) {
+            this.channel = channel;
+            this.threads = threads;
+            this.priority = priority;
+            this.queue = queue;
+        }
+    }
+
+    private static final class LaneTask {
+        final Runnable task;
+        final long enqueuedAt;
+
+        LaneTask(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
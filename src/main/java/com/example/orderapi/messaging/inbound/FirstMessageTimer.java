@@ -0,0 +1,40 @@
+package com.example.orderapi.messaging.inbound;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+
+@Slf4j
+@Component
+public class FirstMessageTimer {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile long timeToFirstMessageMs = -1;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("application.first-message.time", this, timer -> timer.timeToFirstMessageMs)
+                .description("Milliseconds from JVM start until the first inbound message was processed, -1 until then")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isRecorded() {
+        return timeToFirstMessageMs >= 0;
+    }
+
+    public synchronized void record() {
+        if (isRecorded()) {
+            return;
+        }
+        timeToFirstMessageMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        log.info("First inbound message processed {} ms after JVM start", timeToFirstMessageMs);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.orderapi.messaging.inbound;
+
+import com.example.orderapi.messaging.DrainCoordinator;
+import com.example.orderapi.model.CancelOrderRequest;
+import com.example.orderapi.model.OrderRequest;
+import com.example.orderapi.model.OutForDelivery;
+import com.example.orderapi.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+public class InboundMessageProcessor {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired(required = false)
+    private MessageDeduplicator deduplicator;
+
+    @Autowired(required = false)
+    private StripedOrderExecutor stripedOrderExecutor;
+
+    @Autowired(required = false)
+    private ChannelLanes channelLanes;
+
+    @Autowired(required = false)
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired(required = false)
+    private IngressRateLimiter rateLimiter;
+
+    @Autowired(required = false)
+    private RetryScheduler retryScheduler;
+
+    @Autowired(required = false)
+    private DrainCoordinator drainCoordinator;
+
+    @Autowired
+    private FirstMessageTimer firstMessageTimer;
+
+    @Value("${channel.new-orders}")
+    private String newOrdersChannel;
+
+    @Value("${channel.to-be-cancelled-orders}")
+    private String cancelOrdersChannel;
+
+    @Value("${channel.out-for-delivery-orders}")
+    private String deliveryOrdersChannel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public void processNewOrder(String payload, String correlationId, String messageId, String quotaKey) throws JsonProcessingException {
+        throttle(newOrdersChannel, quotaKey);
+        OrderRequest orderRequest = objectMapper.readValue(payload, OrderRequest.class);
+        long fingerprint = MessageDeduplicator.fingerprint(newOrdersChannel, messageId, correlationId, orderRequest.getId());
+        if (isDuplicate(fingerprint, newOrdersChannel, orderRequest.getId())) {
+            return;
+        }
+
+        dispatch(newOrdersChannel, orderRequest.getId(), payload, correlationId, () -> {
+            orderService.processNewOrder(orderRequest, correlationId);
+            markProcessed(fingerprint);
+        });
+    }
+
+    public void processCancelOrder(String payload, String correlationId, String messageId, String quotaKey) throws JsonProcessingException {
+        throttle(cancelOrdersChannel, quotaKey);
+        CancelOrderRequest cancelOrderRequest = objectMapper.readValue(payload, CancelOrderRequest.class);
+        long fingerprint = MessageDeduplicator.fingerprint(cancelOrdersChannel, messageId, correlationId, cancelOrderRequest.getId());
+        if (isDuplicate(fingerprint, cancelOrdersChannel, cancelOrderRequest.getId())) {
+            return;
+        }
+
+        dispatch(cancelOrdersChannel, cancelOrderRequest.getId(), payload, correlationId, () -> {
+            orderService.processCancelOrder(cancelOrderRequest, correlationId);
+            markProcessed(fingerprint);
+        });
+    }
+
+    public void processOrderDelivery(String payload, String messageId, String quotaKey) throws JsonProcessingException {
+        throttle(deliveryOrdersChannel, quotaKey);
+        OutForDelivery deliveryInfo = objectMapper.readValue(payload, OutForDelivery.class);
+        long fingerprint = MessageDeduplicator.fingerprint(deliveryOrdersChannel, messageId, null, deliveryInfo.getOrderId());
+        if (isDuplicate(fingerprint, deliveryOrdersChannel, deliveryInfo.getOrderId())) {
+            return;
+        }
+
+        dispatch(deliveryOrdersChannel, deliveryInfo.getOrderId(), payload, null, () -> {
+            orderService.processOrderDelivery(deliveryInfo);
+            markProcessed(fingerprint);
+        });
+    }
+
+    private void throttle(String channel, String quotaKey) {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(channel, quotaKey);
+        }
+    }
+
+    private void dispatch(String channel, Integer orderId, String payload, String correlationId, Runnable task) {
+        if (!firstMessageTimer.isRecorded()) {
+            Runnable processing = task;
+            task = () -> {
+                processing.run();
+                firstMessageTimer.record();
+            };
+        }
+        if (retryScheduler == null) {
+            submit(channel, orderId, task, null);
+            return;
+        }
+        // a failed attempt is not rethrown; when its retry is due it comes back through submit, so it is
+        // limited, tracked and sequenced on its order's lane or stripe like the first attempt
+        Runnable processing = task;
+        RetryScheduler.Retry retry = retryScheduler.newRetry(channel, payload, correlationId);
+        retry.resubmit = () -> submit(channel, orderId, processing, retry);
+        submit(channel, orderId, processing, retry);
+    }
+
+    private void submit(String channel, Integer orderId, Runnable processing, RetryScheduler.Retry retry) {
+        AtomicBoolean started = new AtomicBoolean();
+        Runnable task = () -> {
+            started.set(true);
+            processing.run();
+        };
+        // the permit is held from hand-off until the attempt is fully processed, queueing included
+        long startedAt = concurrencyLimiter != null ? concurrencyLimiter.acquire(channel) : 0;
+        if (concurrencyLimiter != null) {
+            // inside the retry handling, so the limiter sees the attempt's own outcome
+            task = limited(channel, startedAt, task);
+        }
+        if (retry != null) {
+            Runnable attempt = task;
+            task = () -> retryScheduler.attempt(retry, attempt);
+        }
+        if (drainCoordinator != null) {
+            task = drainCoordinator.track(task);
+        }
+        try {
+            handOff(channel, orderId, task);
+        } catch (RuntimeException | Error e) {
+            // a task that was never queued or run cannot give back its permit and in-flight count itself
+            if (!started.get()) {
+                if (concurrencyLimiter != null) {
+                    concurrencyLimiter.release(channel, startedAt, false);
+                }
+                if (drainCoordinator != null) {
+                    drainCoordinator.untrack();
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void handOff(String channel, Integer orderId, Runnable task) {
+        if (channelLanes != null) {
+            channelLanes.execute(channel, task);
+        } else if (stripedOrderExecutor != null) {
+            stripedOrderExecutor.execute(orderId, task);
+        } else {
+            task.run();
+        }
+    }
+
+    private Runnable limited(String channel, long startedAt, Runnable task) {
+        return () -> {
+            boolean success = false;
+            try {
+                task.run();
+                success = true;
+            } finally {
+                concurrencyLimiter.release(channel, startedAt, success);
+            }
+        };
+    }
+
+    private boolean isDuplicate(long fingerprint, String channel, Integer orderId) {
+        if (deduplicator != null && deduplicator.isDuplicate(fingerprint)) {
+            log.info("Skipping duplicate message on '{}' for order {}", channel, orderId);
+            return true;
+        }
+        return false;
+    }
+
+    private void markProcessed(long fingerprint) {
+        if (deduplicator != null) {
+            deduplicator.markProcessed(fingerprint);
+        }
+    }
+}
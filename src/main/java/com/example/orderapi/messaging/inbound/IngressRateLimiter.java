@@ -0,0 +1,251 @@
+package com.example.orderapi.messaging.inbound;
+
+import com.example.orderapi.model.RateLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inbound.rate-limit.enabled", havingValue = "true")
+public class IngressRateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // keeps interval x burst far from overflowing the nanoTime arithmetic in Bucket.reserve
+    private static final double MAX_WINDOW_NANOS = TimeUnit.DAYS.toNanos(365);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${channel.new-orders}")
+    private String newOrdersChannel;
+
+    @Value("${channel.to-be-cancelled-orders}")
+    private String cancelOrdersChannel;
+
+    @Value("${channel.out-for-delivery-orders}")
+    private String deliveryOrdersChannel;
+
+    @Value("${inbound.rate-limit.new-orders.rate:0}")
+    private double newOrdersRate;
+
+    @Value("${inbound.rate-limit.new-orders.burst:100}")
+    private int newOrdersBurst;
+
+    @Value("${inbound.rate-limit.to-be-cancelled-orders.rate:0}")
+    private double cancelOrdersRate;
+
+    @Value("${inbound.rate-limit.to-be-cancelled-orders.burst:100}")
+    private int cancelOrdersBurst;
+
+    @Value("${inbound.rate-limit.out-for-delivery-orders.rate:0}")
+    private double deliveryOrdersRate;
+
+    @Value("${inbound.rate-limit.out-for-delivery-orders.burst:100}")
+    private int deliveryOrdersBurst;
+
+    @Value("${inbound.rate-limit.quota.rate:0}")
+    private double quotaRate;
+
+    @Value("${inbound.rate-limit.quota.burst:100}")
+    private int quotaBurst;
+
+    @Value("${inbound.rate-limit.quota.max-keys:10000}")
+    private int quotaMaxKeys;
+
+    private final Map<String, Bucket> channelBuckets = new LinkedHashMap<>();
+    private final ConcurrentHashMap<String, Bucket> quotaBuckets = new ConcurrentHashMap<>();
+    // shared by all keys that find the table full of active buckets
+    private volatile Bucket overflowBucket;
+    private final AtomicLong nextSweepAt = new AtomicLong(Long.MIN_VALUE);
+    private volatile RateLimit quotaLimit;
+
+    @PostConstruct
+    public void init() {
+        for (RateLimit limit : new RateLimit[] {
+                new RateLimit(newOrdersRate, newOrdersBurst),
+                new RateLimit(cancelOrdersRate, cancelOrdersBurst),
+                new RateLimit(deliveryOrdersRate, deliveryOrdersBurst),
+                new RateLimit(quotaRate, quotaBurst)}) {
+            if (!isValid(limit)) {
+                throw new IllegalStateException("Invalid inbound rate limit " + limit.getRate() + "/s with burst " + limit.getBurst()
+                        + ": the rate must be 0 (unlimited) or at most 1e9 per second, with burst / rate at most a year");
+            }
+        }
+        addChannel(newOrdersChannel, new RateLimit(newOrdersRate, newOrdersBurst));
+        addChannel(cancelOrdersChannel, new RateLimit(cancelOrdersRate, cancelOrdersBurst));
+        addChannel(deliveryOrdersChannel, new RateLimit(deliveryOrdersRate, deliveryOrdersBurst));
+        quotaLimit = new RateLimit(quotaRate, quotaBurst);
+        overflowBucket = new Bucket(quotaLimit);
+        Gauge.builder("inbound.rate-limit.quota.keys", quotaBuckets, Map::size)
+                .description("Keys with their own quota bucket")
+                .register(meterRegistry);
+    }
+
+    public void acquire(String channel, String quotaKey) {
+        Bucket bucket = channelBuckets.get(channel);
+        if (bucket == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long waitNanos = bucket.reserve(now);
+
+        Bucket quota = quotaBucket(quotaKey, now);
+        if (quota != null) {
+            waitNanos = Math.max(waitNanos, quota.reserve(now));
+        }
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        // holding the listener thread is what slows the transport down
+        bucket.throttled.increment();
+        bucket.waitTime.record(waitNanos, TimeUnit.NANOSECONDS);
+        long deadline = now + waitNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    // a rate above 1e9/s would round its interval down to 0 ns, which Bucket treats as unlimited
+    public static boolean isValid(RateLimit limit) {
+        double rate = limit.getRate();
+        if (limit.getBurst() < 1 || !Double.isFinite(rate) || rate < 0) {
+            return false;
+        }
+        if (rate == 0) {
+            return true;
+        }
+        double intervalNanos = 1_000_000_000d / rate;
+        return intervalNanos >= 1 && intervalNanos * limit.getBurst() <= MAX_WINDOW_NANOS;
+    }
+
+    public Map<String, RateLimit> getLimits() {
+        Map<String, RateLimit> limits = new LinkedHashMap<>();
+        channelBuckets.forEach((channel, bucket) -> limits.put(channel, bucket.limit));
+        return limits;
+    }
+
+    public boolean setLimit(String channel, RateLimit limit) {
+        Bucket bucket = channelBuckets.get(channel);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.configure(limit);
+        log.info("Rate limit for '{}' set to {}/s with burst {}", channel, limit.getRate(), limit.getBurst());
+        return true;
+    }
+
+    public RateLimit getQuota() {
+        return quotaLimit;
+    }
+
+    public void setQuota(RateLimit limit) {
+        quotaLimit = limit;
+        quotaBuckets.values().forEach(bucket -> bucket.configure(limit));
+        overflowBucket.configure(limit);
+        log.info("Per-key quota set to {}/s with burst {}", limit.getRate(), limit.getBurst());
+    }
+
+    private Bucket quotaBucket(String quotaKey, long now) {
+        RateLimit limit = quotaLimit;
+        if (quotaKey == null || quotaKey.isEmpty() || limit.getRate() <= 0) {
+            return null;
+        }
+        Bucket bucket = quotaBuckets.get(quotaKey);
+        if (bucket == null) {
+            if (quotaBuckets.size() >= quotaMaxKeys && !sweepIdle(now)) {
+                // every bucket is still throttling its key: newcomers share one bucket rather than going unlimited
+                return overflowBucket;
+            }
+            bucket = quotaBuckets.computeIfAbsent(quotaKey, key -> new Bucket(limit));
+        }
+        return bucket;
+    }
+
+    // a bucket whose theoretical arrival time has passed holds a full burst, the same as a new one, so
+    // dropping it loses nothing; sweeps are spaced out so a table of active keys is not scanned per event
+    private boolean sweepIdle(long now) {
+        long due = nextSweepAt.get();
+        if (due == Long.MIN_VALUE || now - due >= 0) {
+            if (nextSweepAt.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+                quotaBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+            }
+        }
+        return quotaBuckets.size() < quotaMaxKeys;
+    }
+
+    private void addChannel(String channel, RateLimit limit) {
+        Bucket bucket = new Bucket(limit);
+        bucket.throttled = Counter.builder("inbound.rate-limit.throttled")
+                .tag("channel", channel)
+                .description("Events held back to stay within the rate limit")
+                .register(meterRegistry);
+        bucket.waitTime = Timer.builder("inbound.rate-limit.wait")
+                .tag("channel", channel)
+                .description("Time events were held back by the rate limit")
+                .register(meterRegistry);
+        Gauge.builder("inbound.rate-limit.rate", bucket, b -> b.limit.getRate())
+                .tag("channel", channel)
+                .description("Configured events per second, 0 for unlimited")
+                .register(meterRegistry);
+        channelBuckets.put(channel, bucket);
+    }
+
+    // a token bucket kept as a single theoretical arrival time (GCRA), so reserving is one CAS
+    private static final class Bucket {
+        final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        volatile RateLimit limit;
+        volatile long intervalNanos;
+        volatile long toleranceNanos;
+        Counter throttled;
+        Timer waitTime;
+
+        Bucket(RateLimit limit) {
+            configure(limit);
+        }
+
+        void configure(RateLimit limit) {
+            this.limit = limit;
+            this.intervalNanos = limit.getRate() > 0 ? (long) (1_000_000_000L / limit.getRate()) : 0;
+            this.toleranceNanos = intervalNanos * Math.max(0, limit.getBurst() - 1L);
+        }
+
+        boolean isIdle(long now) {
+            long tat = theoreticalArrival.get();
+            return tat == Long.MIN_VALUE || tat - now <= 0;
+        }
+
+        long reserve(long now) {
+            long interval = intervalNanos;
+            if (interval == 0) {
+                return 0;
+            }
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long start = tat == Long.MIN_VALUE || tat < now ? now : tat;
+                if (theoreticalArrival.compareAndSet(tat, start + interval)) {
+                    return start - now - toleranceNanos;
+                }
+            }
+        }
+    }
+}
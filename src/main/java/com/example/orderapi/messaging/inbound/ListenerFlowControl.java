@@ -0,0 +1,44 @@
+package com.example.orderapi.messaging.inbound;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// Several components pause listeners for their own reasons. Each reason is counted on its own, and a
+// channel resumes only once no reason holds it paused, so one component cannot undo another's pause.
+public abstract class ListenerFlowControl {
+
+    public enum Reason {
+        CONCURRENCY_LIMIT,
+        PUBLISHER_CIRCUIT
+    }
+
+    private final Map<String, EnumMap<Reason, Integer>> holds = new HashMap<>();
+
+    public synchronized void pause(String channel, Reason reason) {
+        EnumMap<Reason, Integer> reasons = holds.computeIfAbsent(channel, key -> new EnumMap<>(Reason.class));
+        boolean wasPaused = !reasons.isEmpty();
+        reasons.merge(reason, 1, Integer::sum);
+        if (!wasPaused) {
+            pause(channel);
+        }
+    }
+
+    public synchronized void resume(String channel, Reason reason) {
+        EnumMap<Reason, Integer> reasons = holds.get(channel);
+        if (reasons == null || !reasons.containsKey(reason)) {
+            return;
+        }
+        if (reasons.merge(reason, -1, Integer::sum) == 0) {
+            reasons.remove(reason);
+        }
+        if (reasons.isEmpty()) {
+            holds.remove(channel);
+            resume(channel);
+        }
+    }
+
+    protected abstract void pause(String channel);
+
+    protected abstract void resume(String channel);
+}
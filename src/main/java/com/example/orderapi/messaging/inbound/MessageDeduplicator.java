@@ -0,0 +1,253 @@
+package com.example.orderapi.messaging.inbound;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inbound.dedup.enabled", havingValue = "true")
+public class MessageDeduplicator {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MAX_PROBES = 32;
+
+    @Value("${inbound.dedup.window-ms:600000}")
+    private long windowMs;
+
+    @Value("${inbound.dedup.recent-set-size:65536}")
+    private int recentSetSize;
+
+    // messages expected per half window; each generation gets twice as many 8-byte slots for its exact set
+    @Value("${inbound.dedup.capacity:1048576}")
+    private int capacity;
+
+    @Value("${inbound.dedup.bloom-bits:8388608}")
+    private int bloomBits;
+
+    @Value("${inbound.dedup.bloom-hashes:4}")
+    private int bloomHashes;
+
+    // Direct-mapped set of the most recent fingerprints; a colliding newer key simply evicts the older one
+    private AtomicLongArray recent;
+    private int recentMask;
+
+    // Two generations rotated every half window, so a fingerprint is remembered for between w/2 and w after it
+    // was marked. A Bloom hit only means "maybe seen" and is confirmed against the generation's exact set, a
+    // fixed-size primitive table; fingerprints that do not fit are not remembered, so memory never grows.
+    private volatile Generation current;
+    private volatile Generation previous;
+    private int bloomWords;
+    private int tableSlots;
+    private int bloomMask;
+    private final AtomicLong nextRotation = new AtomicLong();
+
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int recentSlots = Integer.highestOneBit(Math.max(recentSetSize, 2) - 1) << 1;
+        recent = new AtomicLongArray(recentSlots);
+        recentMask = recentSlots - 1;
+
+        int bits = Integer.highestOneBit(Math.max(bloomBits, 128) - 1) << 1;
+        bloomMask = bits - 1;
+        bloomWords = bits >>> 6;
+        tableSlots = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+        current = new Generation(bloomWords, tableSlots);
+        previous = new Generation(bloomWords, tableSlots);
+        nextRotation.set(System.currentTimeMillis() + windowMs / 2);
+
+        log.info("Inbound deduplication enabled: window={}ms, recent-set={}, bloom-bits={}, {} fingerprints per generation ({} MB)",
+                windowMs, recentSlots, bits, capacity, footprintBytes() >> 20);
+    }
+
+    public static long fingerprint(String channel, String messageId, String correlationId, Integer orderId) {
+        long hash = mix(FNV_OFFSET, channel);
+        if (messageId != null && !messageId.isEmpty()) {
+            return finish(mix(hash ^ 'm', messageId));
+        }
+        hash = mix(hash ^ 'c', correlationId);
+        hash = (hash ^ (orderId != null ? orderId : 0)) * FNV_PRIME;
+        return finish(hash);
+    }
+
+    public boolean isDuplicate(long fingerprint) {
+        rotateIfDue();
+        if (recent.get(slot(fingerprint)) == fingerprint || seen(current, fingerprint) || seen(previous, fingerprint)) {
+            duplicates.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public void markProcessed(long fingerprint) {
+        recent.set(slot(fingerprint), fingerprint);
+        Generation generation = current;
+        if (!generation.add(fingerprint, capacity)) {
+            overflows.incrementAndGet();
+            if (generation.warned.compareAndSet(false, true)) {
+                log.warn("Deduplication generation is full at {} fingerprints; further messages in it are not deduplicated",
+                        generation.size.get());
+            }
+            return;
+        }
+        AtomicLongArray bloom = generation.bloom;
+        long h2 = (fingerprint >>> 32) | 1;
+        for (int i = 0; i < bloomHashes; i++) {
+            int bit = (int) ((fingerprint + i * h2) & bloomMask);
+            long mask = 1L << (bit & 63);
+            int word = bit >>> 6;
+            long bits = bloom.get(word);
+            while ((bits & mask) == 0 && !bloom.compareAndSet(word, bits, bits | mask)) {
+                bits = bloom.get(word);
+            }
+        }
+    }
+
+    public long duplicateCount() {
+        return duplicates.get();
+    }
+
+    public long falsePositiveCount() {
+        return falsePositives.get();
+    }
+
+    public long overflowCount() {
+        return overflows.get();
+    }
+
+    public long size() {
+        return current.size.get() + previous.size.get();
+    }
+
+    // memory held by the recent set and both generations; fixed at init
+    public long footprintBytes() {
+        long generationBytes = (long) bloomWords * Long.BYTES + (long) tableSlots * Long.BYTES;
+        return (long) recent.length() * Long.BYTES + 2 * generationBytes;
+    }
+
+    private boolean seen(Generation generation, long fingerprint) {
+        // the Bloom filter answers most lookups for new messages without touching the exact set
+        if (!mightContain(generation.bloom, fingerprint)) {
+            return false;
+        }
+        if (generation.contains(fingerprint)) {
+            return true;
+        }
+        falsePositives.incrementAndGet();
+        return false;
+    }
+
+    private boolean mightContain(AtomicLongArray bloom, long fingerprint) {
+        long h2 = (fingerprint >>> 32) | 1;
+        for (int i = 0; i < bloomHashes; i++) {
+            int bit = (int) ((fingerprint + i * h2) & bloomMask);
+            if ((bloom.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rotateIfDue() {
+        long due = nextRotation.get();
+        long now = System.currentTimeMillis();
+        if (now >= due && nextRotation.compareAndSet(due, now + windowMs / 2)) {
+            previous = current;
+            current = new Generation(bloomWords, tableSlots);
+        }
+    }
+
+    private int slot(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 29)) & recentMask;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return hash * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        // 0 marks an empty slot in the recent set
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static final class Generation {
+        private final AtomicLongArray bloom;
+        // open-addressed fingerprints, 0 marking an empty slot (finish never returns 0)
+        private final AtomicLongArray fingerprints;
+        private final int mask;
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean warned = new AtomicBoolean();
+
+        private Generation(int bloomWords, int tableSlots) {
+            bloom = new AtomicLongArray(bloomWords);
+            fingerprints = new AtomicLongArray(tableSlots);
+            mask = tableSlots - 1;
+        }
+
+        private boolean add(long fingerprint, int capacity) {
+            int index = indexOf(fingerprint);
+            for (int probe = 0; probe < MAX_PROBES; ) {
+                long current = fingerprints.get(index);
+                if (current == fingerprint) {
+                    return true;
+                }
+                if (current == 0L) {
+                    // keep the table at most half full so probe chains stay short
+                    if (size.get() >= capacity) {
+                        return false;
+                    }
+                    if (fingerprints.compareAndSet(index, 0L, fingerprint)) {
+                        size.incrementAndGet();
+                        return true;
+                    }
+                    // lost the slot to a concurrent add, look at it again
+                    continue;
+                }
+                index = (index + 1) & mask;
+                probe++;
+            }
+            return false;
+        }
+
+        private boolean contains(long fingerprint) {
+            int index = indexOf(fingerprint);
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                long current = fingerprints.get(index);
+                if (current == fingerprint) {
+                    return true;
+                }
+                if (current == 0L) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        private int indexOf(long fingerprint) {
+            // the low bits pick Bloom bits too, so the table index comes from the high half
+            return (int) (fingerprint >>> 32 ^ fingerprint >>> 13) & mask;
+        }
+    }
+}
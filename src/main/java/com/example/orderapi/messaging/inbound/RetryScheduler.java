@@ -0,0 +1,262 @@
+package com.example.orderapi.messaging.inbound;
+
+import com.example.orderapi.messaging.protocol.MessagePublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inbound.retry.enabled", havingValue = "true")
+public class RetryScheduler {
+
+    @Autowired(required = false)
+    private MessagePublisher messagePublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${inbound.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${inbound.retry.initial-delay-ms:200}")
+    private long initialDelayMs;
+
+    @Value("${inbound.retry.multiplier:2.0}")
+    private double multiplier;
+
+    @Value("${inbound.retry.max-delay-ms:60000}")
+    private long maxDelayMs;
+
+    @Value("${inbound.retry.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${inbound.retry.tick-ms:50}")
+    private long tickMs;
+
+    @Value("${inbound.retry.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${inbound.retry.threads:2}")
+    private int threads;
+
+    @Value("${inbound.retry.dead-letter-channel:${channel.dead-letter-orders}}")
+    private String deadLetterChannel;
+
+    private final ConcurrentLinkedQueue<Retry> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private ArrayDeque<Retry>[] wheel;
+    private ExecutorService retryExecutor;
+    private Thread ticker;
+    private volatile boolean running;
+
+    private Counter scheduled;
+    private Counter deadLettered;
+    private Counter deadLetterRetries;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1) << 1);
+        wheel = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        retryExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "inbound-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduled = Counter.builder("inbound.retry.scheduled")
+                .description("Failed events scheduled for another attempt")
+                .register(meterRegistry);
+        deadLettered = Counter.builder("inbound.retry.dead-lettered")
+                .description("Events sent to the dead-letter channel")
+                .register(meterRegistry);
+        deadLetterRetries = Counter.builder("inbound.retry.dead-letter-retries")
+                .description("Failed dead-letter publishes scheduled for another attempt")
+                .register(meterRegistry);
+        Gauge.builder("inbound.retry.pending", pending, AtomicInteger::get)
+                .description("Events waiting for a retry")
+                .register(meterRegistry);
+
+        running = true;
+        ticker = new Thread(this::tick, "inbound-retry-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+        log.info("Inbound retries enabled: {} attempts, dead letters to '{}'", maxAttempts, deadLetterChannel);
+    }
+
+    // the caller sets Retry.resubmit, which hands the next attempt back to its own pipeline when it is due
+    public Retry newRetry(String channel, String payload, String correlationId) {
+        return new Retry(channel, payload, correlationId);
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        ticker.interrupt();
+        retryExecutor.shutdownNow();
+        if (pending.get() > 0) {
+            log.warn("Stopped inbound retries with {} events still waiting", pending.get());
+        }
+    }
+
+    public void attempt(Retry retry, Runnable task) {
+        retry.attempt++;
+        try {
+            task.run();
+        } catch (Exception e) {
+            onFailure(retry, e);
+        }
+    }
+
+    private void onFailure(Retry retry, Exception cause) {
+        if (retry.attempt >= maxAttempts) {
+            deadLetter(retry, cause);
+            return;
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            log.warn("Retry backlog full, not retrying event on '{}'", retry.channel);
+            deadLetter(retry, cause);
+            return;
+        }
+
+        long delayMs = schedule(retry, retry.attempt);
+        scheduled.increment();
+        log.warn("Attempt {} for event on '{}' failed, retrying in {} ms: {}",
+                retry.attempt, retry.channel, delayMs, cause.getMessage());
+    }
+
+    private long schedule(Retry retry, int attempt) {
+        long delayMs = Math.min(maxDelayMs, (long) (initialDelayMs * Math.pow(multiplier, attempt - 1)));
+        // jitter spreads out retries of events that failed together
+        delayMs = (long) (delayMs * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+        retry.dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        incoming.add(retry);
+        return delayMs;
+    }
+
+    private void deadLetter(Retry retry, Exception cause) {
+        deadLettered.increment();
+        log.error("Giving up on event from '{}' after {} attempts", retry.channel, retry.attempt, cause);
+        retry.deadLetter = true;
+        publishDeadLetter(retry);
+    }
+
+    private void publishDeadLetter(Retry retry) {
+        if (messagePublisher == null) {
+            return;
+        }
+        try {
+            // with the outbox enabled this is a durable append, forwarded once the transport is back
+            messagePublisher.publish(deadLetterChannel, retry.payload, retry.correlationId);
+        } catch (Exception e) {
+            // the transport has already seen the event as handled, so this is its only copy: keep it, past max-pending
+            retry.deadLetterAttempts++;
+            pending.incrementAndGet();
+            long delayMs = schedule(retry, retry.deadLetterAttempts);
+            deadLetterRetries.increment();
+            log.warn("Failed to publish event from '{}' to dead-letter channel '{}', retrying in {} ms: {}",
+                    retry.channel, deadLetterChannel, delayMs, e.getMessage());
+        }
+    }
+
+    private void resubmit(Retry retry) {
+        try {
+            // may wait for a permit or for room on the order's lane or stripe
+            retry.resubmit.run();
+        } catch (Exception e) {
+            log.error("Failed to hand off retry of event from '{}'", retry.channel, e);
+            deadLetter(retry, e);
+        }
+    }
+
+    private void tick() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        int mask = wheel.length - 1;
+        long startedAt = System.nanoTime();
+        long tick = 0;
+
+        while (running) {
+            long sleepNanos = startedAt + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            tick++;
+
+            Retry retry;
+            while ((retry = incoming.poll()) != null) {
+                long dueTick = Math.max(tick, (retry.dueAt - startedAt + tickNanos - 1) / tickNanos);
+                retry.rounds = (dueTick - tick) / wheel.length;
+                wheel[(int) (dueTick & mask)].add(retry);
+            }
+
+            Iterator<Retry> bucket = wheel[(int) (tick & mask)].iterator();
+            while (bucket.hasNext()) {
+                Retry due = bucket.next();
+                if (due.rounds > 0) {
+                    due.rounds--;
+                    continue;
+                }
+                bucket.remove();
+                retryExecutor.execute(() -> {
+                    // still pending until handed off (and counted in flight) or run, so a drain never sees a gap
+                    try {
+                        if (due.deadLetter) {
+                            publishDeadLetter(due);
+                        } else {
+                            resubmit(due);
+                        }
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                });
+            }
+        }
+    }
+
+    static final class Retry {
+        final String channel;
+        final String payload;
+        final String correlationId;
+        Runnable resubmit;
+        int attempt;
+        long dueAt;
+        long rounds;
+        boolean deadLetter;
+        int deadLetterAttempts;
+
+        Retry(String channel, String payload, String correlationId) {
+            this.channel = channel;
+            this.payload = payload;
+            this.correlationId = correlationId;
+        }
+    }
+}
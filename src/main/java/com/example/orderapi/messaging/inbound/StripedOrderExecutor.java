@@ -0,0 +1,140 @@
+package com.example.orderapi.messaging.inbound;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inbound.sequencing.enabled", havingValue = "true")
+public class StripedOrderExecutor {
+
+    private static final long IDLE_POLL_MS = 10;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${inbound.sequencing.stripes:64}")
+    private int stripeCount;
+
+    @Value("${inbound.sequencing.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${inbound.sequencing.drain-timeout-ms:30000}")
+    private long drainTimeoutMs;
+
+    private BlockingQueue<Runnable>[] queues;
+    private Thread[] workers;
+    // queued events have already been acknowledged to the transport, so shutdown drains them before the workers stop
+    private volatile boolean accepting;
+    private volatile boolean closed;
+    private final AtomicInteger enqueuing = new AtomicInteger();
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        queues = new BlockingQueue[stripeCount];
+        workers = new Thread[stripeCount];
+        accepting = true;
+
+        for (int stripe = 0; stripe < stripeCount; stripe++) {
+            BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(queueCapacity);
+            queues[stripe] = queue;
+            Gauge.builder("inbound.sequencing.queue.depth", queue, BlockingQueue::size)
+                    .tag("stripe", Integer.toString(stripe))
+                    .description("Events waiting on one order stripe")
+                    .register(meterRegistry);
+
+            workers[stripe] = new Thread(() -> work(queue), "order-stripe-" + stripe);
+            workers[stripe].setDaemon(true);
+            workers[stripe].start();
+        }
+        log.info("Per-order sequencing enabled with {} stripes", stripeCount);
+    }
+
+    public void execute(Integer orderId, Runnable task) {
+        enqueuing.incrementAndGet();
+        try {
+            if (!accepting) {
+                // shutting down: running it here could overtake earlier events of the order still on its stripe,
+                // so it is refused and the transport redelivers it after the restart
+                throw new RejectedExecutionException("Per-order sequencing is shutting down, event for order " + orderId + " refused");
+            }
+            // blocks the listener thread when the stripe is full, pushing back on the transport
+            queues[stripeOf(orderId)].put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing event for order " + orderId, e);
+        } finally {
+            enqueuing.decrementAndGet();
+        }
+    }
+
+    public int stripeOf(Integer orderId) {
+        if (orderId == null) {
+            return 0;
+        }
+        int hash = orderId * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), stripeCount);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        accepting = false;
+        while (enqueuing.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // workers exit once their stripe is empty; nothing can be added behind them any more
+        closed = true;
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+
+        int remaining = 0;
+        for (BlockingQueue<Runnable> queue : queues) {
+            remaining += queue.size();
+        }
+        if (remaining > 0) {
+            // the workers keep running until the JVM exits, but the events are not guaranteed to complete
+            log.error("Per-order sequencing did not drain within {} ms, {} acknowledged events still queued", drainTimeoutMs, remaining);
+        } else {
+            log.info("Per-order sequencing drained");
+        }
+    }
+
+    private void work(BlockingQueue<Runnable> queue) {
+        while (true) {
+            Runnable task;
+            try {
+                task = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                task.run();
+            } catch (Exception e) {
+                // failures are retried and dead-lettered by RetryScheduler when inbound.retry is enabled
+                log.error("Error processing sequenced order event", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.orderapi.messaging.listener;
+
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+// stopping cancels the consumer, so the broker requeues prefetched but unacknowledged messages
+@Component
+@ConditionalOnExpression("(${inbound.concurrency.enabled:false} or ${publisher.circuit-breaker.enabled:false}) and '${receive.protocol}'.equals('amqp')")
+public class AmqpListenerFlowControl extends LifecycleListenerFlowControl {
+
+    @Autowired
+    private RabbitListenerEndpointRegistry registry;
+
+    @Override
+    protected String transport() {
+        return "AMQP";
+    }
+
+    @Override
+    protected List<MessageListenerContainer> containersFor(String channel) {
+        return registry.getListenerContainers().stream()
+                .filter(container -> container instanceof AbstractMessageListenerContainer listenerContainer
+                        && Arrays.asList(listenerContainer.getQueueNames()).contains(channel))
+                .toList();
+    }
+}
@@ -1,12 +1,12 @@
 package com.example.orderapi.messaging.listener;
 
-import com.example.orderapi.model.*;
-import com.example.orderapi.service.OrderService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.orderapi.messaging.inbound.InboundMessageProcessor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
@@ -14,23 +14,23 @@ import java.util.Objects;
 
 @Slf4j
 @Component
-@ConditionalOnProperty(name = "receive.protocol", havingValue = "amqp")
+// the reactive engine consumes through its own receiver instead
+@ConditionalOnExpression("'${receive.protocol}'.equals('amqp') and !'${engine:servlet}'.equals('reactive')")
 public class AmqpMessageListener {
 
     @Autowired
-    private OrderService orderService;
+    private InboundMessageProcessor inboundMessageProcessor;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Value("${inbound.rate-limit.quota-header:producer}")
+    private String quotaHeader;
 
     @RabbitListener(queues = "${channel.new-orders}")
     public void handleNewOrder(Message<String> message) {
         log.info("Received new order from AMQP");
         try {
-            String payload = message.getPayload();
-            OrderRequest orderRequest = objectMapper.readValue(payload, OrderRequest.class);
             String correlationId = Objects.requireNonNull(message.getHeaders().get("orderCorrelationId")).toString();
 
-            orderService.processNewOrder(orderRequest, correlationId);
+            inboundMessageProcessor.processNewOrder(message.getPayload(), correlationId, messageId(message), quotaKey(message));
         } catch (Exception e) {
             log.error("Error processing new order from AMQP", e);
         }
@@ -40,24 +40,31 @@ public class AmqpMessageListener {
     public void handleCancelOrder(Message<String> message) {
         log.info("Received cancel order from AMQP");
         try {
-            String payload = message.getPayload();
-            CancelOrderRequest cancelOrderRequest = objectMapper.readValue(payload, CancelOrderRequest.class);
             String correlationId = Objects.requireNonNull(message.getHeaders().get("orderCorrelationId")).toString();
 
-            orderService.processCancelOrder(cancelOrderRequest, correlationId);
+            inboundMessageProcessor.processCancelOrder(message.getPayload(), correlationId, messageId(message), quotaKey(message));
         } catch (Exception e) {
             log.error("Error processing cancel order from AMQP", e);
         }
     }
 
     @RabbitListener(queues = "${channel.out-for-delivery-orders}")
-    public void handleOrderDelivery(String payload) {
+    public void handleOrderDelivery(Message<String> message) {
         log.info("Received order delivery from AMQP");
         try {
-            OutForDelivery deliveryInfo = objectMapper.readValue(payload, OutForDelivery.class);
-            orderService.processOrderDelivery(deliveryInfo);
+            inboundMessageProcessor.processOrderDelivery(message.getPayload(), messageId(message), quotaKey(message));
         } catch (Exception e) {
             log.error("Error processing order delivery from AMQP", e);
         }
     }
+
+    private String messageId(Message<String> message) {
+        Object messageId = message.getHeaders().get(AmqpHeaders.MESSAGE_ID);
+        return messageId != null ? messageId.toString() : null;
+    }
+
+    private String quotaKey(Message<String> message) {
+        Object quotaKey = message.getHeaders().get(quotaHeader);
+        return quotaKey != null ? quotaKey.toString() : null;
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.orderapi.messaging.listener;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jms.config.JmsListenerEndpointRegistry;
+import org.springframework.jms.listener.AbstractMessageListenerContainer;
+import org.springframework.jms.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// stopping the container parks its consumers on the open connection instead of closing them
+@Component
+@ConditionalOnExpression("(${inbound.concurrency.enabled:false} or ${publisher.circuit-breaker.enabled:false}) and '${receive.protocol}'.equals('jms')")
+public class JmsListenerFlowControl extends LifecycleListenerFlowControl {
+
+    @Autowired
+    private JmsListenerEndpointRegistry registry;
+
+    @Override
+    protected String transport() {
+        return "JMS";
+    }
+
+    @Override
+    protected List<MessageListenerContainer> containersFor(String channel) {
+        return registry.getListenerContainers().stream()
+                .filter(container -> container instanceof AbstractMessageListenerContainer listenerContainer
+                        && channel.equals(listenerContainer.getDestinationName()))
+                .toList();
+    }
+}
@@ -1,10 +1,9 @@
 package com.example.orderapi.messaging.listener;
 
-import com.example.orderapi.model.*;
-import com.example.orderapi.service.OrderService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.orderapi.messaging.inbound.InboundMessageProcessor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.stereotype.Component;
@@ -20,9 +19,10 @@ import jakarta.jms.TextMessage;
 public class JmsMessageListener {
 
     @Autowired
-    private OrderService orderService;
+    private InboundMessageProcessor inboundMessageProcessor;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Value("${inbound.rate-limit.quota-header:producer}")
+    private String quotaHeader;
 
     @JmsListener(destination = "${channel.new-orders}")
     public void handleNewOrder(Message message) {
@@ -32,9 +32,7 @@ public class JmsMessageListener {
             String correlationId = message.getStringProperty("orderCorrelationId");
 
             log.debug("new-orders Payload: {}", payload);
-            OrderRequest orderRequest = objectMapper.readValue(payload, OrderRequest.class);
-
-            orderService.processNewOrder(orderRequest, correlationId);
+            inboundMessageProcessor.processNewOrder(payload, correlationId, message.getJMSMessageID(), message.getStringProperty(quotaHeader));
         } catch (Exception e) {
             log.error("Error processing new order from JMS", e);
         }
@@ -48,9 +46,7 @@ public class JmsMessageListener {
             String correlationId = message.getStringProperty("orderCorrelationId");
 
             log.debug("to-be-cancelled-orders Payload: {}", payload);
-            CancelOrderRequest cancelOrderRequest = objectMapper.readValue(payload, CancelOrderRequest.class);
-
-            orderService.processCancelOrder(cancelOrderRequest, correlationId);
+            inboundMessageProcessor.processCancelOrder(payload, correlationId, message.getJMSMessageID(), message.getStringProperty(quotaHeader));
         } catch (Exception e) {
             log.error("Error processing cancel order from JMS", e);
         }
@@ -63,8 +59,7 @@ public class JmsMessageListener {
             String payload = extractPayload(message);
 
             log.debug("out-for-delivery-orders Payload: {}", payload);
-            OutForDelivery deliveryInfo = objectMapper.readValue(payload, OutForDelivery.class);
-            orderService.processOrderDelivery(deliveryInfo);
+            inboundMessageProcessor.processOrderDelivery(payload, message.getJMSMessageID(), message.getStringProperty(quotaHeader));
         } catch (Exception e) {
             log.error("Error processing order delivery from JMS", e);
         }
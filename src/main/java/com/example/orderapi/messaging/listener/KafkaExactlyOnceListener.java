@@ -0,0 +1,378 @@
+package com.example.orderapi.messaging.listener;
+
+import com.example.orderapi.messaging.protocol.MessagePublisher;
+import com.example.orderapi.messaging.protocol.MessagePublisherDecorator;
+import com.example.orderapi.messaging.protocol.OutboundMessage;
+import com.example.orderapi.model.CancelOrderRequest;
+import com.example.orderapi.model.OrderRequest;
+import com.example.orderapi.model.OutForDelivery;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.service.OrderStateMachine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// Kafka-to-Kafka consume-transform-produce in one transaction per batch: the records OrderService publishes
+// while a batch is processed and the consumer offsets of that batch are committed together, once per
+// batch-size records or batch-ms milliseconds. A crash before the commit aborts both, and the batch is
+// reprocessed by whichever consumer gets its partitions. Lifecycle moves made in an aborted transaction are
+// undone before its records are reprocessed. A failed batch is aborted and retried; an Error, or a failure
+// outside a batch, stops the intake and reports liveness as broken.
+@Slf4j
+@Component
+@ConditionalOnExpression("${kafka.exactly-once.enabled:false} and !${kafka.streams.enabled:false} and '${receive.protocol}'.equals('kafka') and '${send.protocol}'.equals('kafka') and !'${engine:servlet}'.equals('reactive')")
+public class KafkaExactlyOnceListener implements MessagePublisherDecorator, SmartLifecycle {
+
+    // innermost, so publishes made inside a transaction go to the transactional producer instead of the transport
+    public static final int ORDER = -100;
+
+    private static final String CORRELATION_HEADER = "orderCorrelationId";
+
+    // looked up lazily: OrderService depends on the publisher this bean decorates
+    @Autowired
+    private ObjectProvider<OrderService> orderService;
+
+    @Autowired
+    private ObjectProvider<OrderStateMachine> orderStateMachine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${spring.kafka.consumer.auto-offset-reset:earliest}")
+    private String autoOffsetReset;
+
+    @Value("${kafka.exactly-once.transactional-id:}")
+    private String transactionalId;
+
+    @Value("${kafka.exactly-once.batch-size:500}")
+    private int batchSize;
+
+    @Value("${kafka.exactly-once.batch-ms:100}")
+    private long batchMs;
+
+    @Value("${outbox.enabled:false}")
+    private boolean outboxEnabled;
+
+    @Value("${channel.new-orders}")
+    private String newOrdersChannel;
+
+    @Value("${channel.to-be-cancelled-orders}")
+    private String cancelOrdersChannel;
+
+    @Value("${channel.out-for-delivery-orders}")
+    private String deliveryOrdersChannel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile boolean running;
+    private volatile Thread intakeThread;
+    private volatile KafkaConsumer<String, String> consumer;
+    private KafkaProducer<String, String> producer;
+
+    private Counter records;
+    private Timer committed;
+    private Timer aborted;
+
+    @PostConstruct
+    public void init() {
+        if (outboxEnabled) {
+            // the outbox wraps this decorator, so intake output would be forwarded outside the transaction
+            throw new IllegalStateException("kafka.exactly-once.enabled cannot be combined with outbox.enabled");
+        }
+        if (transactionalId.isBlank()) {
+            // a shared id would let every instance fence the others' producers
+            throw new IllegalStateException("kafka.exactly-once.transactional-id must be set, unique per instance and stable across its restarts");
+        }
+        records = Counter.builder("kafka.exactly-once.records")
+                .description("Records consumed and committed within a transaction")
+                .register(meterRegistry);
+        committed = Timer.builder("kafka.exactly-once.transactions")
+                .tag("outcome", "committed")
+                .description("Time from the first record of a batch to its commit")
+                .register(meterRegistry);
+        aborted = Timer.builder("kafka.exactly-once.transactions")
+                .tag("outcome", "aborted")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public MessagePublisher decorate(MessagePublisher publisher) {
+        return new MessagePublisher() {
+            @Override
+            public void publish(String channel, String message, String correlationId) {
+                if (Thread.currentThread() == intakeThread) {
+                    // the send fails the commit if it is not acknowledged, so it is not waited for here
+                    producer.send(new ProducerRecord<>(channel, 0, "", message, headers(correlationId)));
+                    return;
+                }
+                publisher.publish(channel, message, correlationId);
+            }
+
+            @Override
+            public void publishBatch(List<OutboundMessage> messages) {
+                if (Thread.currentThread() == intakeThread) {
+                    for (OutboundMessage message : messages) {
+                        publish(message.getChannel(), message.getPayload(), message.getCorrelationId());
+                    }
+                    return;
+                }
+                publisher.publishBatch(messages);
+            }
+
+            @Override
+            public CompletableFuture<Void> publishAsync(String channel, String message, String correlationId, Executor blockingExecutor) {
+                return publisher.publishAsync(channel, message, correlationId, blockingExecutor);
+            }
+
+            @Override
+            public void flush() {
+                publisher.flush();
+            }
+        };
+    }
+
+    @Override
+    public void start() {
+        producer = new KafkaProducer<>(producerProperties());
+        // fences a previous producer with the same id and aborts whatever transaction it left open
+        producer.initTransactions();
+
+        running = true;
+        Thread thread = new Thread(this::run, "kafka-exactly-once");
+        intakeThread = thread;
+        thread.start();
+        log.info("Exactly-once Kafka intake started as '{}', committing every {} records or {} ms", transactionalId, batchSize, batchMs);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        KafkaConsumer<String, String> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        Thread thread = intakeThread;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        try (KafkaConsumer<String, String> kafkaConsumer = new KafkaConsumer<>(consumerProperties())) {
+            consumer = kafkaConsumer;
+            kafkaConsumer.subscribe(List.of(newOrdersChannel, cancelOrdersChannel, deliveryOrdersChannel));
+            while (running) {
+                ConsumerRecords<String, String> polled = kafkaConsumer.poll(Duration.ofMillis(batchMs));
+                if (!polled.isEmpty()) {
+                    processBatch(kafkaConsumer, polled);
+                }
+            }
+        } catch (WakeupException e) {
+            if (running) {
+                fail(e);
+            }
+        } catch (RuntimeException | Error e) {
+            fail(e);
+        } finally {
+            consumer = null;
+            // an open transaction is left to be aborted by the next producer with this transactional id
+            producer.close(Duration.ofSeconds(10));
+            log.info("Exactly-once Kafka intake stopped");
+        }
+    }
+
+    private void processBatch(KafkaConsumer<String, String> kafkaConsumer, ConsumerRecords<String, String> polled) {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(batchMs);
+        Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        int count = 0;
+        boolean done = false;
+
+        OrderStateMachine stateMachine = orderStateMachine.getIfAvailable();
+        if (stateMachine != null) {
+            stateMachine.openJournal();
+        }
+        producer.beginTransaction();
+        try {
+            while (true) {
+                for (ConsumerRecord<String, String> record : polled) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    firstOffsets.putIfAbsent(partition, record.offset());
+                    process(record);
+                    offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                    count++;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (count >= batchSize || remaining <= 0 || !running) {
+                    break;
+                }
+                polled = kafkaConsumer.poll(Duration.ofNanos(remaining));
+            }
+
+            producer.sendOffsetsToTransaction(offsets, kafkaConsumer.groupMetadata());
+            producer.commitTransaction();
+            done = true;
+            records.increment(count);
+            committed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            log.debug("Committed transaction of {} records", count);
+        } catch (WakeupException | Error e) {
+            abort(count, started, e);
+            rewind(kafkaConsumer, firstOffsets);
+            throw e;
+        } catch (RuntimeException e) {
+            // also covers a rebalance that took partitions away mid-batch; their new owner reprocesses them
+            abort(count, started, e);
+            rewind(kafkaConsumer, firstOffsets);
+        } finally {
+            if (stateMachine != null) {
+                // whatever did not commit is reprocessed, here or by the next owner, from the state before it
+                if (!done) {
+                    stateMachine.rollbackJournal();
+                }
+                stateMachine.closeJournal();
+            }
+        }
+    }
+
+    private void process(ConsumerRecord<String, String> record) {
+        String correlationId = correlationId(record);
+        try {
+            if (record.topic().equals(newOrdersChannel)) {
+                orderService.getObject().processNewOrder(objectMapper.readValue(record.value(), OrderRequest.class), correlationId);
+            } else if (record.topic().equals(cancelOrdersChannel)) {
+                orderService.getObject().processCancelOrder(objectMapper.readValue(record.value(), CancelOrderRequest.class), correlationId);
+            } else if (record.topic().equals(deliveryOrdersChannel)) {
+                orderService.getObject().processOrderDelivery(objectMapper.readValue(record.value(), OutForDelivery.class));
+            }
+        } catch (Exception e) {
+            // like the listeners, a record that cannot be processed is logged and committed past
+            log.error("Error processing record {}-{}@{} in transaction", record.topic(), record.partition(), record.offset(), e);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        // nothing is consumed any more, so the instance is reported broken rather than left looking healthy
+        running = false;
+        log.error("Exactly-once Kafka intake failed", cause);
+        AvailabilityChangeEvent.publish(eventPublisher, this, LivenessState.BROKEN);
+    }
+
+    private void abort(int count, long started, Throwable cause) {
+        log.error("Aborting transaction of {} records, they will be reprocessed", count, cause);
+        try {
+            producer.abortTransaction();
+        } catch (RuntimeException e) {
+            // a fenced or failed producer cannot abort; a fresh one with the same id aborts on init
+            log.warn("Could not abort transaction, recreating producer", e);
+            producer.close(Duration.ZERO);
+            producer = new KafkaProducer<>(producerProperties());
+            producer.initTransactions();
+        }
+        aborted.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private void rewind(KafkaConsumer<String, String> kafkaConsumer, Map<TopicPartition, Long> firstOffsets) {
+        for (Map.Entry<TopicPartition, Long> entry : firstOffsets.entrySet()) {
+            if (kafkaConsumer.assignment().contains(entry.getKey())) {
+                kafkaConsumer.seek(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private String correlationId(ConsumerRecord<String, String> record) {
+        Header header = record.headers().lastHeader(CORRELATION_HEADER);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private List<Header> headers(String correlationId) {
+        return correlationId != null
+                ? List.of(new RecordHeader(CORRELATION_HEADER, correlationId.getBytes(StandardCharsets.UTF_8)))
+                : List.of();
+    }
+
+    private Properties producerProperties() {
+        Properties properties = new Properties();
+        properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
+        properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        properties.put(ProducerConfig.ACKS_CONFIG, "all");
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        return properties;
+    }
+
+    private Properties consumerProperties() {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // offsets are committed with the transaction, and upstream transactional writes are read only once committed
+        properties.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        return properties;
+    }
+}
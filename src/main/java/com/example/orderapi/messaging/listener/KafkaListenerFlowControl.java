@@ -0,0 +1,47 @@
+package com.example.orderapi.messaging.listener;
+
+import com.example.orderapi.messaging.inbound.ListenerFlowControl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("(${inbound.concurrency.enabled:false} or ${publisher.circuit-breaker.enabled:false}) and '${receive.protocol}'.equals('kafka')")
+public class KafkaListenerFlowControl extends ListenerFlowControl {
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    // a paused consumer keeps polling, so the group stays alive, but fetches no further records
+    @Override
+    protected void pause(String channel) {
+        for (MessageListenerContainer container : containersFor(channel)) {
+            container.pause();
+        }
+        log.debug("Paused Kafka consumption of '{}'", channel);
+    }
+
+    @Override
+    protected void resume(String channel) {
+        for (MessageListenerContainer container : containersFor(channel)) {
+            container.resume();
+        }
+        log.debug("Resumed Kafka consumption of '{}'", channel);
+    }
+
+    private List<MessageListenerContainer> containersFor(String channel) {
+        return registry.getListenerContainers().stream()
+                .filter(container -> {
+                    String[] topics = container.getContainerProperties().getTopics();
+                    return topics != null && Arrays.asList(topics).contains(channel);
+                })
+                .toList();
+    }
+}
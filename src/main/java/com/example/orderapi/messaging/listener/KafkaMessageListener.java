@@ -1,56 +1,67 @@
 package com.example.orderapi.messaging.listener;
 
-import com.example.orderapi.model.*;
-import com.example.orderapi.service.OrderService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.orderapi.messaging.inbound.InboundMessageProcessor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
-@ConditionalOnProperty(name = "receive.protocol", havingValue = "kafka")
+// the reactive engine, the exactly-once intake (KafkaExactlyOnceListener) and the Kafka Streams engine consume through their own clients instead
+@ConditionalOnExpression("'${receive.protocol}'.equals('kafka') and !'${engine:servlet}'.equals('reactive') and !((${kafka.exactly-once.enabled:false} or ${kafka.streams.enabled:false}) and '${send.protocol}'.equals('kafka'))")
 public class KafkaMessageListener {
 
     @Autowired
-    private OrderService orderService;
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private InboundMessageProcessor inboundMessageProcessor;
 
     @KafkaListener(topics = "${channel.new-orders}", groupId = "${spring.kafka.consumer.group-id}")
-    public void handleNewOrder(@Payload String message, @Header(value = "orderCorrelationId", required = false) String correlationId) {
+    public void handleNewOrder(@Payload String message,
+                               @Header(value = "orderCorrelationId", required = false) String correlationId,
+                               @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                               @Header(KafkaHeaders.OFFSET) long offset,
+                               @Header(value = "${inbound.rate-limit.quota-header:producer}", required = false) String quotaKey) {
         log.info("Received new order from Kafka - CorrelationId: {}", correlationId);
         try {
-            OrderRequest orderRequest = objectMapper.readValue(message, OrderRequest.class);
-            orderService.processNewOrder(orderRequest, correlationId);
+            inboundMessageProcessor.processNewOrder(message, correlationId, messageId(partition, offset), quotaKey);
         } catch (Exception e) {
             log.error("Error processing new order from Kafka", e);
         }
     }
 
     @KafkaListener(topics = "${channel.to-be-cancelled-orders}", groupId = "${spring.kafka.consumer.group-id}")
-    public void handleCancelOrder(@Payload String message, @Header(value = "orderCorrelationId", required = false) String correlationId) {
+    public void handleCancelOrder(@Payload String message,
+                                  @Header(value = "orderCorrelationId", required = false) String correlationId,
+                                  @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                  @Header(KafkaHeaders.OFFSET) long offset,
+                                  @Header(value = "${inbound.rate-limit.quota-header:producer}", required = false) String quotaKey) {
         log.info("Received cancel order from Kafka - CorrelationId: {}", correlationId);
         try {
-            CancelOrderRequest cancelOrderRequest = objectMapper.readValue(message, CancelOrderRequest.class);
-            orderService.processCancelOrder(cancelOrderRequest, correlationId);
+            inboundMessageProcessor.processCancelOrder(message, correlationId, messageId(partition, offset), quotaKey);
         } catch (Exception e) {
             log.error("Error processing cancel order from Kafka", e);
         }
     }
 
     @KafkaListener(topics = "${channel.out-for-delivery-orders}", groupId = "${spring.kafka.consumer.group-id}")
-    public void handleOrderDelivery(@Payload String message) {
+    public void handleOrderDelivery(@Payload String message,
+                                    @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                                    @Header(KafkaHeaders.OFFSET) long offset,
+                                    @Header(value = "${inbound.rate-limit.quota-header:producer}", required = false) String quotaKey) {
         log.info("Received order delivery from Kafka");
         try {
-            OutForDelivery deliveryInfo = objectMapper.readValue(message, OutForDelivery.class);
-            orderService.processOrderDelivery(deliveryInfo);
+            inboundMessageProcessor.processOrderDelivery(message, messageId(partition, offset), quotaKey);
         } catch (Exception e) {
             log.error("Error processing order delivery from Kafka", e);
         }
     }
+
+    private String messageId(int partition, long offset) {
+        // a redelivered record keeps its partition and offset
+        return partition + "-" + offset;
+    }
 }
@@ -0,0 +1,71 @@
+package com.example.orderapi.messaging.listener;
+
+import com.example.orderapi.messaging.inbound.ListenerFlowControl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Pauses by stopping the channel's containers without waiting for them: a stop waits for running consumers,
+// and those may be blocked on the very limit that asked for the pause. A resume that arrives while the
+// containers are still stopping is applied once they have stopped.
+@Slf4j
+public abstract class LifecycleListenerFlowControl extends ListenerFlowControl {
+
+    private final Map<String, Integer> stopping = new HashMap<>();
+    private final Set<String> resumeWhenStopped = new HashSet<>();
+    private final Object stopLock = new Object();
+
+    protected abstract List<? extends SmartLifecycle> containersFor(String channel);
+
+    protected abstract String transport();
+
+    @Override
+    protected void pause(String channel) {
+        List<? extends SmartLifecycle> containers = containersFor(channel);
+        synchronized (stopLock) {
+            stopping.merge(channel, containers.size(), Integer::sum);
+            resumeWhenStopped.remove(channel);
+        }
+        for (SmartLifecycle container : containers) {
+            container.stop(() -> stopped(channel));
+        }
+        log.debug("Pausing {} consumption of '{}'", transport(), channel);
+    }
+
+    @Override
+    protected void resume(String channel) {
+        synchronized (stopLock) {
+            if (stopping.containsKey(channel)) {
+                resumeWhenStopped.add(channel);
+                return;
+            }
+        }
+        start(channel);
+    }
+
+    private void stopped(String channel) {
+        synchronized (stopLock) {
+            if (stopping.merge(channel, -1, Integer::sum) > 0) {
+                return;
+            }
+            stopping.remove(channel);
+            if (!resumeWhenStopped.remove(channel)) {
+                log.debug("Paused {} consumption of '{}'", transport(), channel);
+                return;
+            }
+        }
+        start(channel);
+    }
+
+    private void start(String channel) {
+        for (SmartLifecycle container : containersFor(channel)) {
+            container.start();
+        }
+        log.debug("Resumed {} consumption of '{}'", transport(), channel);
+    }
+}
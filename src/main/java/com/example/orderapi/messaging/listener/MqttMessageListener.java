@@ -1,8 +1,6 @@
 package com.example.orderapi.messaging.listener;
 
-import com.example.orderapi.model.*;
-import com.example.orderapi.service.OrderService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.orderapi.messaging.inbound.InboundMessageProcessor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.client.mqttv3.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +10,8 @@ import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Slf4j
 @Component
@@ -19,7 +19,7 @@ import jakarta.annotation.PreDestroy;
 public class MqttMessageListener {
 
     @Autowired
-    private OrderService orderService;
+    private InboundMessageProcessor inboundMessageProcessor;
 
     @Value("${mqtt.broker-url}")
     private String brokerUrl;
@@ -36,21 +36,29 @@ public class MqttMessageListener {
     @Value("${channel.out-for-delivery-orders}")
     private String deliveryOrdersChannel;
 
-    private MqttClient mqttClient;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // one client per topic: Paho delivers each client's messages on a single callback thread, so a topic
+    // blocked on a full inbound lane only holds up its own deliveries
+    private final Map<String, MqttClient> clients = new LinkedHashMap<>();
 
     @PostConstruct
     public void init() {
+        subscribe(newOrdersChannel, "new-orders");
+        subscribe(cancelOrdersChannel, "to-be-cancelled-orders");
+        subscribe(deliveryOrdersChannel, "out-for-delivery-orders");
+        log.info("MQTT Listener connected and subscribed to topics");
+    }
+
+    private void subscribe(String topic, String suffix) {
         try {
-            mqttClient = new MqttClient(brokerUrl, clientId + "-listener");
+            MqttClient mqttClient = new MqttClient(brokerUrl, clientId + "-listener-" + suffix);
             MqttConnectOptions options = new MqttConnectOptions();
             options.setCleanSession(true);
             options.setAutomaticReconnect(true);
-            
+
             mqttClient.setCallback(new MqttCallback() {
                 @Override
                 public void connectionLost(Throwable cause) {
-                    log.error("MQTT connection lost", cause);
+                    log.error("MQTT connection lost for topic {}", topic, cause);
                 }
 
                 @Override
@@ -62,16 +70,12 @@ public class MqttMessageListener {
                 public void deliveryComplete(IMqttDeliveryToken token) {
                 }
             });
-            
+
             mqttClient.connect(options);
-            
-            mqttClient.subscribe(newOrdersChannel);
-            mqttClient.subscribe(cancelOrdersChannel);
-            mqttClient.subscribe(deliveryOrdersChannel);
-            
-            log.info("MQTT Listener connected and subscribed to topics");
+            mqttClient.subscribe(topic);
+            clients.put(topic, mqttClient);
         } catch (MqttException e) {
-            log.error("Error connecting MQTT Listener", e);
+            log.error("Error connecting MQTT Listener for topic {}", topic, e);
             throw new RuntimeException("Failed to connect MQTT Listener", e);
         }
     }
@@ -79,30 +83,44 @@ public class MqttMessageListener {
     private void handleMessage(String topic, String payload) {
         log.info("Received message from MQTT - Topic: {}", topic);
         try {
+            // MQTT packet ids are reused per connection, so duplicates are keyed on the order id instead
             if (topic.equals(newOrdersChannel)) {
-                OrderRequest orderRequest = objectMapper.readValue(payload, OrderRequest.class);
-                orderService.processNewOrder(orderRequest, "");
+                inboundMessageProcessor.processNewOrder(payload, "", null, null);
             } else if (topic.equals(cancelOrdersChannel)) {
-                CancelOrderRequest cancelOrderRequest = objectMapper.readValue(payload, CancelOrderRequest.class);
-                orderService.processCancelOrder(cancelOrderRequest, "");
+                inboundMessageProcessor.processCancelOrder(payload, "", null, null);
             } else if (topic.equals(deliveryOrdersChannel)) {
-                OutForDelivery deliveryInfo = objectMapper.readValue(payload, OutForDelivery.class);
-                orderService.processOrderDelivery(deliveryInfo);
+                inboundMessageProcessor.processOrderDelivery(payload, null, null);
             }
         } catch (Exception e) {
             log.error("Error processing MQTT message", e);
         }
     }
 
+    // unsubscribing stops new deliveries while the connections stay up for acknowledgements
+    public void stopIntake() {
+        for (Map.Entry<String, MqttClient> entry : clients.entrySet()) {
+            try {
+                if (entry.getValue().isConnected()) {
+                    entry.getValue().unsubscribe(entry.getKey());
+                }
+            } catch (MqttException e) {
+                log.error("Error unsubscribing MQTT Listener from {}", entry.getKey(), e);
+            }
+        }
+        log.info("MQTT Listener unsubscribed from topics");
+    }
+
     @PreDestroy
     public void cleanup() {
-        try {
-            if (mqttClient != null && mqttClient.isConnected()) {
-                mqttClient.disconnect();
-                mqttClient.close();
+        for (MqttClient mqttClient : clients.values()) {
+            try {
+                if (mqttClient.isConnected()) {
+                    mqttClient.disconnect();
+                    mqttClient.close();
+                }
+            } catch (MqttException e) {
+                log.error("Error disconnecting MQTT Listener", e);
             }
-        } catch (MqttException e) {
-            log.error("Error disconnecting MQTT Listener", e);
         }
     }
 }
@@ -1,34 +1,33 @@
 package com.example.orderapi.messaging.listener;
 
-import com.example.orderapi.model.*;
-import com.example.orderapi.service.OrderService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.orderapi.messaging.inbound.InboundMessageProcessor;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Component
-@ConditionalOnProperty(name = "receive.protocol", havingValue = "sqs")
+// the reactive engine consumes through its own receiver instead
+@ConditionalOnExpression("'${receive.protocol}'.equals('sqs') and !'${engine:servlet}'.equals('reactive')")
 public class SqsMessageListener {
 
     @Autowired
-    private OrderService orderService;
+    private InboundMessageProcessor inboundMessageProcessor;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Value("${inbound.rate-limit.quota-header:producer}")
+    private String quotaHeader;
 
     @SqsListener("${channel.new-orders}")
     public void handleNewOrder(Message<String> message) {
         log.info("Received new order from SQS");
         try {
-            String payload = message.getPayload();
-            OrderRequest orderRequest = objectMapper.readValue(payload, OrderRequest.class);
             String correlationId = (String) message.getHeaders().get("orderCorrelationId");
 
-            orderService.processNewOrder(orderRequest, correlationId);
+            inboundMessageProcessor.processNewOrder(message.getPayload(), correlationId, messageId(message), quotaKey(message));
         } catch (Exception e) {
             log.error("Error processing new order from SQS", e);
         }
@@ -38,24 +37,31 @@ public class SqsMessageListener {
     public void handleCancelOrder(Message<String> message) {
         log.info("Received cancel order from SQS");
         try {
-            String payload = message.getPayload();
-            CancelOrderRequest cancelOrderRequest = objectMapper.readValue(payload, CancelOrderRequest.class);
             String correlationId = (String) message.getHeaders().get("orderCorrelationId");
 
-            orderService.processCancelOrder(cancelOrderRequest, correlationId);
+            inboundMessageProcessor.processCancelOrder(message.getPayload(), correlationId, messageId(message), quotaKey(message));
         } catch (Exception e) {
             log.error("Error processing cancel order from SQS", e);
         }
     }
 
     @SqsListener("${channel.out-for-delivery-orders}")
-    public void handleOrderDelivery(String payload) {
+    public void handleOrderDelivery(Message<String> message) {
         log.info("Received order delivery from SQS");
         try {
-            OutForDelivery deliveryInfo = objectMapper.readValue(payload, OutForDelivery.class);
-            orderService.processOrderDelivery(deliveryInfo);
+            inboundMessageProcessor.processOrderDelivery(message.getPayload(), messageId(message), quotaKey(message));
         } catch (Exception e) {
             log.error("Error processing order delivery from SQS", e);
         }
     }
+
+    private String messageId(Message<String> message) {
+        // Spring Cloud AWS maps the SQS MessageId, which survives redelivery, onto the id header
+        return String.valueOf(message.getHeaders().getId());
+    }
+
+    private String quotaKey(Message<String> message) {
+        Object quotaKey = message.getHeaders().get(quotaHeader);
+        return quotaKey != null ? quotaKey.toString() : null;
+    }
 }
@@ -0,0 +1,14 @@
+package com.example.orderapi.messaging.outbound;
+
+import com.example.orderapi.messaging.protocol.OutboundMessage;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class OutboxBatch {
+    List<OutboundMessage> messages;
+    // position right after each message, so a partially published batch can be committed up to its prefix
+    List<OutboxPosition> ends;
+    OutboxPosition next;
+}
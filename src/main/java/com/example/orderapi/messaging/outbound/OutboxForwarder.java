@@ -0,0 +1,133 @@
+package com.example.orderapi.messaging.outbound;
+
+import com.example.orderapi.messaging.protocol.BatchPublishException;
+import com.example.orderapi.messaging.protocol.MessagePublisher;
+import com.example.orderapi.messaging.protocol.MessagePublisherDecorator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+public class OutboxForwarder implements MessagePublisherDecorator, SmartLifecycle {
+
+    public static final int ORDER = 200;
+
+    @Autowired
+    private OutboxLog outboxLog;
+
+    @Value("${outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.poll-interval-ms:10}")
+    private long pollIntervalMs;
+
+    @Value("${outbox.retry.initial-backoff-ms:100}")
+    private long initialBackoffMs;
+
+    @Value("${outbox.retry.max-backoff-ms:10000}")
+    private long maxBackoffMs;
+
+    private MessagePublisher transportPublisher;
+    private Thread forwarderThread;
+    private volatile boolean running;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public MessagePublisher decorate(MessagePublisher publisher) {
+        this.transportPublisher = publisher;
+        return new OutboxPublisher(outboxLog);
+    }
+
+    @Override
+    public void start() {
+        if (transportPublisher == null) {
+            log.warn("Outbox enabled but no publisher is active, nothing to forward");
+            return;
+        }
+        running = true;
+        forwarderThread = new Thread(this::forward, "outbox-forwarder");
+        forwarderThread.setDaemon(true);
+        forwarderThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (forwarderThread != null) {
+            try {
+                forwarderThread.join(maxBackoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void forward() {
+        OutboxPosition position = outboxLog.committedPosition();
+        long backoffMs = initialBackoffMs;
+
+        while (running) {
+            OutboxBatch batch = null;
+            try {
+                batch = outboxLog.read(position, batchSize);
+                if (!batch.getMessages().isEmpty()) {
+                    transportPublisher.publishBatch(batch.getMessages());
+                    log.debug("Forwarded {} messages from outbox", batch.getMessages().size());
+                }
+                if (!batch.getNext().equals(position)) {
+                    outboxLog.commit(batch.getNext());
+                    position = batch.getNext();
+                }
+                backoffMs = initialBackoffMs;
+                if (batch.getMessages().size() < batchSize) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // the published prefix is committed; the rest is re-read on the next attempt, so messages a
+                // transport published out of order may be sent again (delivery is at-least-once)
+                if (e instanceof BatchPublishException partial && partial.publishedPrefix() > 0) {
+                    position = commitPrefix(batch, partial.publishedPrefix(), position);
+                }
+                log.warn("Error forwarding outbox batch, retrying in {} ms", backoffMs, e);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    private OutboxPosition commitPrefix(OutboxBatch batch, int published, OutboxPosition position) {
+        OutboxPosition end = batch.getEnds().get(published - 1);
+        try {
+            outboxLog.commit(end);
+            log.debug("Forwarded {} of {} messages from outbox before the failure", published, batch.getMessages().size());
+            return end;
+        } catch (IOException e) {
+            log.error("Error committing partially forwarded outbox batch", e);
+            return position;
+        }
+    }
+}
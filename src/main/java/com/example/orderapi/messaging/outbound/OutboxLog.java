@@ -0,0 +1,381 @@
+package com.example.orderapi.messaging.outbound;
+
+import com.example.orderapi.messaging.protocol.OutboundMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+public class OutboxLog {
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    // record layout: [int body length][int crc32 of body][body]
+    private static final int HEADER_BYTES = 8;
+
+    @Value("${outbox.directory:outbox}")
+    private String directory;
+
+    @Value("${outbox.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    // appends wait for an fsync shared with every append made while the previous one ran; false fsyncs each append alone
+    @Value("${outbox.group-commit:true}")
+    private boolean groupCommit;
+
+    private Path dir;
+    private final Object writeLock = new Object();
+    private FileChannel writeChannel;
+    private volatile long writeSegment;
+    // sequence numbers of appends: written (under writeLock), and forced or failed (under syncLock)
+    private volatile long appended;
+    private final Object syncLock = new Object();
+    private long synced;
+    private long failedThrough;
+    private IOException syncFailure;
+    private volatile boolean open = true;
+    private Thread syncer;
+
+    private volatile OutboxPosition committed;
+
+    @PostConstruct
+    public void init() throws IOException {
+        dir = Path.of(directory).toAbsolutePath();
+        Files.createDirectories(dir);
+
+        committed = readCheckpoint();
+        long lastSegment = lastSegment();
+        // never append behind a tail that may have been torn by a crash
+        writeSegment = Math.max(lastSegment + 1, committed.getSegment());
+        writeChannel = openSegment(writeSegment);
+
+        if (groupCommit) {
+            syncer = new Thread(this::syncLoop, "outbox-sync");
+            syncer.setDaemon(true);
+            syncer.start();
+        }
+
+        log.info("Outbox opened at {} - resuming from segment {} offset {}, writing segment {}",
+                dir, committed.getSegment(), committed.getOffset(), writeSegment);
+    }
+
+    // returns once the message is on disk, so the caller may acknowledge upstream
+    public void append(OutboundMessage message) throws IOException {
+        ByteBuffer record = encode(message);
+
+        long sequence;
+        synchronized (writeLock) {
+            if (writeChannel.position() > 0 && writeChannel.position() + record.remaining() > segmentBytes) {
+                roll();
+            }
+            while (record.hasRemaining()) {
+                writeChannel.write(record);
+            }
+            if (!groupCommit) {
+                writeChannel.force(false);
+                return;
+            }
+            sequence = ++appended;
+        }
+        awaitSync(sequence);
+    }
+
+    public OutboxPosition committedPosition() {
+        return committed;
+    }
+
+    public OutboxBatch read(OutboxPosition from, int maxMessages) throws IOException {
+        List<OutboundMessage> messages = new ArrayList<>(Math.min(maxMessages, 1024));
+        List<OutboxPosition> ends = new ArrayList<>(Math.min(maxMessages, 1024));
+        long segment = from.getSegment();
+        long offset = from.getOffset();
+
+        while (messages.size() < maxMessages) {
+            Path file = segmentPath(segment);
+            boolean sealed = segment < writeSegment;
+            if (!Files.exists(file)) {
+                if (!sealed) {
+                    break;
+                }
+                segment++;
+                offset = 0;
+                continue;
+            }
+
+            boolean endOfSegment = false;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                while (messages.size() < maxMessages) {
+                    if (offset + HEADER_BYTES > size) {
+                        endOfSegment = true;
+                        break;
+                    }
+                    header.clear();
+                    readFully(channel, header, offset);
+                    int length = header.getInt(0);
+                    int crc = header.getInt(4);
+                    if (length < 0 || offset + HEADER_BYTES + length > size) {
+                        endOfSegment = true;
+                        break;
+                    }
+                    ByteBuffer body = ByteBuffer.allocate(length);
+                    readFully(channel, body, offset + HEADER_BYTES);
+                    if (crc != checksum(body.array())) {
+                        log.warn("Outbox segment {} has a corrupt record at offset {}, skipping the rest of it", segment, offset);
+                        endOfSegment = true;
+                        break;
+                    }
+                    messages.add(decode(body.array()));
+                    offset += HEADER_BYTES + length;
+                    ends.add(new OutboxPosition(segment, offset));
+                }
+            }
+
+            // the active segment may still grow, so only sealed segments are left behind
+            if (endOfSegment && sealed) {
+                segment++;
+                offset = 0;
+            } else {
+                break;
+            }
+        }
+
+        return new OutboxBatch(messages, ends, new OutboxPosition(segment, offset));
+    }
+
+    public void commit(OutboxPosition position) throws IOException {
+        Path temp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        // the checkpoint must be on disk before the rename, and the rename before segments are deleted
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer content = ByteBuffer.wrap((position.getSegment() + " " + position.getOffset()).getBytes(StandardCharsets.UTF_8));
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+
+        for (long segment = committed.getSegment(); segment < position.getSegment(); segment++) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        committed = position;
+    }
+
+    public boolean isDrained() throws IOException {
+        synchronized (writeLock) {
+            return committed.getSegment() == writeSegment && committed.getOffset() >= writeChannel.position();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        open = false;
+        synchronized (syncLock) {
+            syncLock.notifyAll();
+        }
+        if (syncer != null) {
+            try {
+                syncer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (writeLock) {
+            writeChannel.force(false);
+            writeChannel.close();
+        }
+    }
+
+    private void awaitSync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            // wakes the syncer if it is idle; if it is forcing, the append is covered by its next round
+            syncLock.notifyAll();
+            while (synced < sequence) {
+                if (failedThrough >= sequence) {
+                    throw new IOException("Failed to sync outbox segment", syncFailure);
+                }
+                if (!open) {
+                    throw new IOException("Outbox is closed");
+                }
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for outbox sync", e);
+                }
+            }
+        }
+    }
+
+    private void syncLoop() {
+        while (open) {
+            synchronized (syncLock) {
+                // appended is bumped before an appender notifies, so a wake-up is never missed
+                while (open && appended <= Math.max(synced, failedThrough)) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            long target;
+            FileChannel channel;
+            synchronized (writeLock) {
+                target = appended;
+                channel = writeChannel;
+            }
+
+            IOException failure = null;
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // rolled over in the meantime, roll() has already forced everything up to target
+            } catch (IOException e) {
+                failure = e;
+                log.error("Error syncing outbox segment", e);
+            }
+            synchronized (syncLock) {
+                if (failure == null) {
+                    synced = target;
+                } else {
+                    failedThrough = target;
+                    syncFailure = failure;
+                }
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // some platforms cannot open a directory for syncing; the rename is then only as durable as the OS makes it
+            log.debug("Could not sync outbox directory {}", dir, e);
+        }
+    }
+
+    private void roll() throws IOException {
+        writeChannel.force(false);
+        writeChannel.close();
+        writeChannel = openSegment(writeSegment + 1);
+        writeSegment++;
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private long lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .max()
+                    .orElse(-1L);
+        }
+    }
+
+    private OutboxPosition readCheckpoint() throws IOException {
+        Path checkpoint = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return new OutboxPosition(0, 0);
+        }
+        String[] parts = Files.readString(checkpoint).trim().split(" ");
+        return new OutboxPosition(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of outbox segment");
+            }
+        }
+    }
+
+    private static ByteBuffer encode(OutboundMessage message) {
+        byte[] channel = bytes(message.getChannel());
+        byte[] correlationId = bytes(message.getCorrelationId());
+        byte[] payload = bytes(message.getPayload());
+
+        int length = 12 + length(channel) + length(correlationId) + length(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+        buffer.putInt(length);
+        buffer.putInt(0);
+        putField(buffer, channel);
+        putField(buffer, correlationId);
+        putField(buffer, payload);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, length);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.flip();
+    }
+
+    private static OutboundMessage decode(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        String channel = getField(buffer);
+        String correlationId = getField(buffer);
+        String payload = getField(buffer);
+        return new OutboundMessage(channel, payload, correlationId);
+    }
+
+    private static int checksum(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] field) {
+        return field != null ? field.length : 0;
+    }
+
+    private static void putField(ByteBuffer buffer, byte[] field) {
+        if (field == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(field.length);
+            buffer.put(field);
+        }
+    }
+
+    private static String getField(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
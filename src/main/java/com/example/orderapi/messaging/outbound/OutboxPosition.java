@@ -0,0 +1,9 @@
+package com.example.orderapi.messaging.outbound;
+
+import lombok.Value;
+
+@Value
+public class OutboxPosition {
+    long segment;
+    long offset;
+}
@@ -0,0 +1,29 @@
+package com.example.orderapi.messaging.outbound;
+
+import com.example.orderapi.messaging.protocol.MessagePublisher;
+import com.example.orderapi.messaging.protocol.OutboundMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+@Slf4j
+public class OutboxPublisher implements MessagePublisher {
+
+    private final OutboxLog outboxLog;
+
+    public OutboxPublisher(OutboxLog outboxLog) {
+        this.outboxLog = outboxLog;
+    }
+
+    @Override
+    public void publish(String channel, String messagePayload, String correlationId) {
+        log.debug("Appending to outbox - Channel: {}, CorrelationId: {}", channel, correlationId);
+
+        try {
+            outboxLog.append(new OutboundMessage(channel, messagePayload, correlationId));
+        } catch (IOException e) {
+            log.error("Error appending to outbox", e);
+            throw new RuntimeException("Failed to append to outbox", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.orderapi.messaging.protocol;
+
+import java.util.List;
+
+// Thrown by publishBatch when some messages of a batch were not acknowledged. getFailures() is aligned
+// with the batch: null where the message was published, the cause where it was not (or may not have been).
+public class BatchPublishException extends RuntimeException {
+
+    private final List<Exception> failures;
+
+    public BatchPublishException(String message, List<Exception> failures) {
+        super(message, firstFailure(failures));
+        this.failures = failures;
+    }
+
+    public List<Exception> getFailures() {
+        return failures;
+    }
+
+    // number of leading messages that were all published
+    public int publishedPrefix() {
+        int published = 0;
+        while (published < failures.size() && failures.get(published) == null) {
+            published++;
+        }
+        return published;
+    }
+
+    private static Exception firstFailure(List<Exception> failures) {
+        for (Exception failure : failures) {
+            if (failure != null) {
+                return failure;
+            }
+        }
+        return null;
+    }
+}
@@ -3,11 +3,19 @@ package com.example.orderapi.messaging.protocol;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Component
@@ -16,6 +24,12 @@ public class KafkaPublisher implements MessagePublisher {
 
     private final KafkaTemplate<String, String> kafkaTemplate;
 
+    @Value("${kafka.publish.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${kafka.publish.batch-timeout-ms:30000}")
+    private long batchTimeoutMs;
+
     public KafkaPublisher(KafkaTemplate<String, String> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
@@ -24,16 +38,89 @@ public class KafkaPublisher implements MessagePublisher {
     public void publish(String channel, String messagePayload, String correlationId) {
         log.info("Publishing to Kafka - Channel: {}, CorrelationId: {}", channel, correlationId);
 
-        kafkaTemplate.send(
-                new ProducerRecord<>(
-                        channel,
-                        0,
-                        0L,
-                        "",
-                        messagePayload,
-                        List.of(new RecordHeader("orderCorrelationId", correlationId.getBytes()))
-                )
-        );
+        // waiting for the ack makes a broker failure visible to the caller and the circuit breaker
+        CompletableFuture<?> ack = kafkaTemplate.send(toRecord(channel, messagePayload, correlationId));
+        try {
+            ack.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted before Kafka acknowledged; the message may still be published", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to publish to Kafka", e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Not acknowledged by Kafka within " + timeoutMs + " ms; the message may still be published", e);
+        }
         log.debug("Published to Kafka successfully");
     }
+
+    @Override
+    public CompletableFuture<Void> publishAsync(String channel, String messagePayload, String correlationId, Executor blockingExecutor) {
+        log.info("Publishing to Kafka asynchronously - Channel: {}, CorrelationId: {}", channel, correlationId);
+
+        // send() itself blocks while topic metadata is fetched, so it is handed off too; no thread waits for the ack
+        return CompletableFuture.supplyAsync(() -> kafkaTemplate.send(toRecord(channel, messagePayload, correlationId)), blockingExecutor)
+                .thenCompose(ack -> ack)
+                .thenApply(result -> (Void) null);
+    }
+
+    @Override
+    public void publishBatch(List<OutboundMessage> messages) {
+        log.info("Publishing batch of {} messages to Kafka", messages.size());
+
+        List<Exception> failures = new ArrayList<>(Collections.nCopies(messages.size(), (Exception) null));
+        CompletableFuture<?>[] acks = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            OutboundMessage message = messages.get(i);
+            try {
+                acks[i] = kafkaTemplate.send(toRecord(message.getChannel(), message.getPayload(), message.getCorrelationId()));
+            } catch (RuntimeException e) {
+                failures.set(i, e);
+            }
+        }
+
+        // each record is acknowledged on its own, so the outcome is reported per message
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTimeoutMs);
+        int failed = 0;
+        for (int i = 0; i < acks.length; i++) {
+            if (acks[i] == null) {
+                failed++;
+                continue;
+            }
+            try {
+                acks[i].get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.set(i, new TimeoutException("Interrupted before Kafka acknowledged; the message may still be published"));
+                failed++;
+            } catch (ExecutionException e) {
+                failures.set(i, e.getCause() instanceof Exception cause ? cause : e);
+                failed++;
+            } catch (TimeoutException e) {
+                failures.set(i, new TimeoutException("Not acknowledged by Kafka within " + batchTimeoutMs + " ms; the message may still be published"));
+                failed++;
+            }
+        }
+
+        if (failed > 0) {
+            log.error("{} of {} messages of the batch were not acknowledged by Kafka", failed, messages.size());
+            throw new BatchPublishException("Failed to publish " + failed + " of " + messages.size() + " messages to Kafka", failures);
+        }
+        log.debug("Published batch to Kafka successfully");
+    }
+
+    @Override
+    public void flush() {
+        kafkaTemplate.flush();
+    }
+
+    private ProducerRecord<String, String> toRecord(String channel, String messagePayload, String correlationId) {
+        return new ProducerRecord<>(
+                channel,
+                0,
+                0L,
+                "",
+                messagePayload,
+                List.of(new RecordHeader("orderCorrelationId", correlationId.getBytes()))
+        );
+    }
 }
@@ -1,5 +1,39 @@
 package com.example.orderapi.messaging.protocol;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public interface MessagePublisher {
     void publish(String channel, String message, String correlationId);
+
+    // not atomic: on a partial failure a BatchPublishException tells which messages were published
+    default void publishBatch(List<OutboundMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            OutboundMessage message = messages.get(i);
+            try {
+                publish(message.getChannel(), message.getPayload(), message.getCorrelationId());
+            } catch (RuntimeException e) {
+                if (i == 0) {
+                    throw e;
+                }
+                // stops at the first failure so the published messages stay a prefix of the batch
+                List<Exception> failures = new ArrayList<>(Collections.nCopies(i, (Exception) null));
+                failures.addAll(Collections.nCopies(messages.size() - i, e));
+                throw new BatchPublishException("Published " + i + " of " + messages.size() + " messages", failures);
+            }
+        }
+    }
+
+    // completes once the broker has acknowledged the message; transports with a blocking client
+    // publish on blockingExecutor, so the calling thread is never held by the broker
+    default CompletableFuture<Void> publishAsync(String channel, String message, String correlationId, Executor blockingExecutor) {
+        return CompletableFuture.runAsync(() -> publish(channel, message, correlationId), blockingExecutor);
+    }
+
+    // blocks until publishes the transport buffers internally have been sent
+    default void flush() {
+    }
 }
@@ -0,0 +1,32 @@
+package com.example.orderapi.messaging.protocol;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class MessagePublisherDecoratingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MessagePublisherDecorator> decorators;
+
+    public MessagePublisherDecoratingPostProcessor(ObjectProvider<MessagePublisherDecorator> decorators) {
+        this.decorators = decorators;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof MessagePublisher publisher)) {
+            return bean;
+        }
+
+        // Lowest order is applied first and so ends up closest to the transport
+        MessagePublisher decorated = publisher;
+        for (MessagePublisherDecorator decorator : decorators.orderedStream().toList()) {
+            decorated = decorator.decorate(decorated);
+            log.info("Decorated publisher '{}' with {}", beanName, decorator.getClass().getSimpleName());
+        }
+        return decorated;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.orderapi.messaging.protocol;
+
+import org.springframework.core.Ordered;
+
+public interface MessagePublisherDecorator extends Ordered {
+    MessagePublisher decorate(MessagePublisher publisher);
+}
@@ -0,0 +1,14 @@
+package com.example.orderapi.messaging.protocol;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboundMessage {
+    private String channel;
+    private String payload;
+    private String correlationId;
+}
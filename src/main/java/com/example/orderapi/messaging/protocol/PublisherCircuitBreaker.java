@@ -0,0 +1,292 @@
+package com.example.orderapi.messaging.protocol;
+
+import com.example.orderapi.messaging.inbound.ListenerFlowControl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "publisher.circuit-breaker.enabled", havingValue = "true")
+public class PublisherCircuitBreaker implements MessagePublisherDecorator {
+
+    // below the outbox, so the forwarder backs off on an open circuit instead of the caller failing
+    public static final int ORDER = 100;
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // looked up lazily: flow control beans depend on the listener registries, which are created later
+    @Autowired
+    private ObjectProvider<ListenerFlowControl> flowControl;
+
+    @Value("${publisher.circuit-breaker.window-size:100}")
+    private int windowSize;
+
+    @Value("${publisher.circuit-breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${publisher.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${publisher.circuit-breaker.slow-call-rate-threshold:80}")
+    private int slowCallRateThreshold;
+
+    @Value("${publisher.circuit-breaker.slow-call-duration-ms:2000}")
+    private long slowCallDurationMs;
+
+    @Value("${publisher.circuit-breaker.open-duration-ms:10000}")
+    private long openDurationMs;
+
+    @Value("${publisher.circuit-breaker.half-open-calls:5}")
+    private int halfOpenCalls;
+
+    @Value("${publisher.circuit-breaker.pause-listeners:true}")
+    private boolean pauseListeners;
+
+    @Value("${channel.new-orders}")
+    private String newOrdersChannel;
+
+    @Value("${channel.to-be-cancelled-orders}")
+    private String cancelOrdersChannel;
+
+    @Value("${channel.out-for-delivery-orders}")
+    private String deliveryOrdersChannel;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+    // stopping a container can wait for its consumer, which may be the thread tripping the circuit
+    private final ScheduledExecutorService flowControlExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "publisher-circuit-flow-control");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // sliding window of the last windowSize outcomes, guarded by this
+    private byte[] window;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+    private int halfOpenCompleted;
+
+    private long slowCallNanos;
+    private long openNanos;
+    private Counter successCalls;
+    private Counter failedCalls;
+    private Counter slowCallsCounter;
+    private Counter rejectedCalls;
+
+    @PostConstruct
+    public void init() {
+        window = new byte[windowSize];
+        slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallDurationMs);
+        openNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+
+        successCalls = callCounter("success");
+        failedCalls = callCounter("failure");
+        slowCallsCounter = callCounter("slow");
+        rejectedCalls = callCounter("rejected");
+        Gauge.builder("publisher.circuit.state", this, breaker -> breaker.state.ordinal())
+                .description("Publisher circuit state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flowControlExecutor.shutdownNow();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public MessagePublisher decorate(MessagePublisher publisher) {
+        return new MessagePublisher() {
+            @Override
+            public void publish(String channel, String message, String correlationId) {
+                call(() -> publisher.publish(channel, message, correlationId));
+            }
+
+            @Override
+            public void publishBatch(List<OutboundMessage> messages) {
+                call(() -> publisher.publishBatch(messages));
+            }
+
+            @Override
+            public CompletableFuture<Void> publishAsync(String channel, String message, String correlationId, Executor blockingExecutor) {
+                acquirePermission();
+
+                long startedAt = System.nanoTime();
+                CompletableFuture<Void> published;
+                try {
+                    published = publisher.publishAsync(channel, message, correlationId, blockingExecutor);
+                } catch (RuntimeException e) {
+                    record(true, System.nanoTime() - startedAt);
+                    throw e;
+                }
+                return published.whenComplete((ignored, failure) -> record(failure != null, System.nanoTime() - startedAt));
+            }
+
+            @Override
+            public void flush() {
+                publisher.flush();
+            }
+        };
+    }
+
+    private void call(Runnable publish) {
+        acquirePermission();
+
+        long startedAt = System.nanoTime();
+        boolean failed = true;
+        try {
+            publish.run();
+            failed = false;
+        } finally {
+            record(failed, System.nanoTime() - startedAt);
+        }
+    }
+
+    private void acquirePermission() {
+        State current = state;
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejectedCalls.increment();
+                throw new PublisherUnavailableException("open");
+            }
+            transitionToHalfOpen();
+            current = state;
+        }
+        if (current == State.HALF_OPEN && halfOpenPermits.getAndDecrement() <= 0) {
+            rejectedCalls.increment();
+            throw new PublisherUnavailableException("half-open");
+        }
+    }
+
+    private synchronized void record(boolean failed, long durationNanos) {
+        boolean slow = durationNanos > slowCallNanos;
+        (failed ? failedCalls : successCalls).increment();
+        if (slow) {
+            slowCallsCounter.increment();
+        }
+
+        if (state == State.HALF_OPEN) {
+            // a single bad probe reopens; all probes passing closes
+            if (failed || slow) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenCompleted >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        byte outcome = (byte) ((failed ? FAILURE : SUCCESS) | (slow ? SLOW : SUCCESS));
+        if (calls == window.length) {
+            byte evicted = window[next];
+            failures -= evicted & FAILURE;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+        failures += outcome & FAILURE;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (calls >= minimumCalls
+                && (failures * 100 >= failureRateThreshold * calls || slowCalls * 100 >= slowCallRateThreshold * calls)) {
+            log.warn("Opening publisher circuit: {} of {} calls failed, {} slow", failures, calls, slowCalls);
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private synchronized void transitionToHalfOpen() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+    }
+
+    // callers hold the monitor
+    private void transitionTo(State target) {
+        State previous = state;
+        switch (target) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenCompleted = 0;
+                halfOpenPermits.set(halfOpenCalls);
+            }
+            case CLOSED -> {
+                window = new byte[window.length];
+                next = 0;
+                calls = 0;
+                failures = 0;
+                slowCalls = 0;
+            }
+        }
+        state = target;
+        log.info("Publisher circuit {} -> {}", previous, target);
+
+        if (target == State.OPEN) {
+            flowControlExecutor.execute(() -> pauseListeners(true));
+            // with listeners paused there may be no publish to trigger the probe, so schedule it
+            flowControlExecutor.schedule(this::transitionToHalfOpen, openDurationMs, TimeUnit.MILLISECONDS);
+        } else if (previous == State.OPEN) {
+            flowControlExecutor.execute(() -> pauseListeners(false));
+        }
+    }
+
+    private void pauseListeners(boolean pause) {
+        ListenerFlowControl control = flowControl.getIfAvailable();
+        if (!pauseListeners || control == null) {
+            return;
+        }
+        for (String channel : List.of(newOrdersChannel, cancelOrdersChannel, deliveryOrdersChannel)) {
+            try {
+                if (pause) {
+                    control.pause(channel, ListenerFlowControl.Reason.PUBLISHER_CIRCUIT);
+                } else {
+                    control.resume(channel, ListenerFlowControl.Reason.PUBLISHER_CIRCUIT);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to {} listener for '{}'", pause ? "pause" : "resume", channel, e);
+            }
+        }
+    }
+
+    private Counter callCounter(String outcome) {
+        return Counter.builder("publisher.circuit.calls")
+                .tag("outcome", outcome)
+                .description("Publish calls through the circuit breaker")
+                .register(meterRegistry);
+    }
+}
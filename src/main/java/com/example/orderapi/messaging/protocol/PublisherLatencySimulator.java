@@ -0,0 +1,69 @@
+package com.example.orderapi.messaging.protocol;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// Benchmarking aid: makes the broker look slow by delaying every publish, see accept-benchmark.sh
+@Slf4j
+@Component
+@ConditionalOnExpression("${publisher.simulated-latency-ms:0} > 0")
+public class PublisherLatencySimulator implements MessagePublisherDecorator {
+
+    // right on top of the transport, so every other decorator sees the slow broker
+    public static final int ORDER = 0;
+
+    @Value("${publisher.simulated-latency-ms:0}")
+    private long latencyMs;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public MessagePublisher decorate(MessagePublisher publisher) {
+        log.warn("Delaying every publish by {} ms", latencyMs);
+        return new MessagePublisher() {
+            @Override
+            public void publish(String channel, String message, String correlationId) {
+                delay();
+                publisher.publish(channel, message, correlationId);
+            }
+
+            @Override
+            public void publishBatch(List<OutboundMessage> messages) {
+                delay();
+                publisher.publishBatch(messages);
+            }
+
+            @Override
+            public CompletableFuture<Void> publishAsync(String channel, String message, String correlationId, Executor blockingExecutor) {
+                // waits on a timer rather than a thread, like a broker that is slow to acknowledge
+                Executor delayed = CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS, blockingExecutor);
+                return CompletableFuture.runAsync(() -> { }, delayed)
+                        .thenCompose(ignored -> publisher.publishAsync(channel, message, correlationId, blockingExecutor));
+            }
+
+            @Override
+            public void flush() {
+                publisher.flush();
+            }
+        };
+    }
+
+    private void delay() {
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while simulating publish latency", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.orderapi.messaging.protocol;
+
+public class PublisherUnavailableException extends RuntimeException {
+
+    public PublisherUnavailableException(String state) {
+        super("Publisher circuit is " + state + ", not publishing");
+    }
+}
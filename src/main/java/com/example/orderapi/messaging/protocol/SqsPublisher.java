@@ -6,14 +6,20 @@ import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @Component
 @ConditionalOnProperty(name = "send.protocol", havingValue = "sqs")
 public class SqsPublisher implements MessagePublisher {
 
+    private static final int MAX_BATCH_ENTRIES = 10;
+
     private final SqsClient sqsClient;
 
     public SqsPublisher(SqsClient sqsClient) {
@@ -27,23 +33,10 @@ public class SqsPublisher implements MessagePublisher {
         try {
             String queueUrl = getQueueUrl(channel);
 
-            Map<String, MessageAttributeValue> attributes = new HashMap<>();
-            if (correlationId != null && !correlationId.trim().isEmpty()) {
-                attributes.put(
-                        "orderCorrelationId",
-                        MessageAttributeValue.builder()
-                                .dataType("String")
-                                .stringValue(correlationId)
-                                .build()
-                );
-            } else {
-                log.debug("Skipping orderCorrelationId attribute because correlationId is null or blank");
-            }
-
             SendMessageRequest sendMessageRequest = SendMessageRequest.builder()
                     .queueUrl(queueUrl)
                     .messageBody(messagePayload)
-                    .messageAttributes(attributes)
+                    .messageAttributes(toAttributes(correlationId))
                     .build();
             
             sqsClient.sendMessage(sendMessageRequest);
@@ -54,6 +47,80 @@ public class SqsPublisher implements MessagePublisher {
         }
     }
     
+    @Override
+    public void publishBatch(List<OutboundMessage> messages) {
+        log.info("Publishing batch of {} messages to SQS", messages.size());
+
+        // SQS batches are per queue and capped at 10 entries; consecutive runs keep per-queue order, so
+        // after a run with failures the rest of the batch is not sent
+        List<Exception> failures = new ArrayList<>(Collections.nCopies(messages.size(), (Exception) null));
+        int start = 0;
+        while (start < messages.size()) {
+            String channel = messages.get(start).getChannel();
+            int end = start;
+            while (end < messages.size() && end - start < MAX_BATCH_ENTRIES && messages.get(end).getChannel().equals(channel)) {
+                end++;
+            }
+            if (!sendBatch(channel, messages.subList(start, end), failures.subList(start, end))) {
+                Exception skipped = new IllegalStateException("Not sent after an earlier message of the batch failed");
+                for (int i = end; i < messages.size(); i++) {
+                    failures.set(i, skipped);
+                }
+                log.error("Error publishing batch to SQS, {} of {} messages not published",
+                        failures.stream().filter(Objects::nonNull).count(), messages.size());
+                throw new BatchPublishException("Failed to publish batch to SQS", failures);
+            }
+            start = end;
+        }
+        log.debug("Published batch to SQS successfully");
+    }
+
+    // records a failure per entry into failures; false when any entry of the run failed
+    private boolean sendBatch(String channel, List<OutboundMessage> messages, List<Exception> failures) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            OutboundMessage message = messages.get(i);
+            entries.add(SendMessageBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .messageBody(message.getPayload())
+                    .messageAttributes(toAttributes(message.getCorrelationId()))
+                    .build());
+        }
+
+        SendMessageBatchResponse response;
+        try {
+            response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                    .queueUrl(getQueueUrl(channel))
+                    .entries(entries)
+                    .build());
+        } catch (RuntimeException e) {
+            Collections.fill(failures, e);
+            return false;
+        }
+
+        for (BatchResultErrorEntry failed : response.failed()) {
+            failures.set(Integer.parseInt(failed.id()), new IllegalStateException(
+                    "Rejected by SQS queue " + channel + ": " + failed.code() + " " + failed.message()));
+        }
+        return response.failed().isEmpty();
+    }
+
+    private Map<String, MessageAttributeValue> toAttributes(String correlationId) {
+        Map<String, MessageAttributeValue> attributes = new HashMap<>();
+        if (correlationId != null && !correlationId.trim().isEmpty()) {
+            attributes.put(
+                    "orderCorrelationId",
+                    MessageAttributeValue.builder()
+                            .dataType("String")
+                            .stringValue(correlationId)
+                            .build()
+            );
+        } else {
+            log.debug("Skipping orderCorrelationId attribute because correlationId is null or blank");
+        }
+        return attributes;
+    }
+
     private String getQueueUrl(String queueName) {
         try {
             GetQueueUrlResponse response = sqsClient.getQueueUrl(
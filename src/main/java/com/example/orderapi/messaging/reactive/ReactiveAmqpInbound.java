@@ -0,0 +1,61 @@
+package com.example.orderapi.messaging.reactive;
+
+import com.rabbitmq.client.Delivery;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.ConsumeOptions;
+import reactor.rabbitmq.RabbitFlux;
+import reactor.rabbitmq.Receiver;
+import reactor.rabbitmq.ReceiverOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@Component
+@ConditionalOnExpression("'${engine:servlet}'.equals('reactive') and '${receive.protocol}'.equals('amqp')")
+public class ReactiveAmqpInbound extends ReactiveInboundSource {
+
+    // Spring's connection factory, reused for its broker settings
+    @Autowired
+    private CachingConnectionFactory connectionFactory;
+
+    @Autowired
+    private RabbitAdmin rabbitAdmin;
+
+    @Override
+    protected String transport() {
+        return "AMQP";
+    }
+
+    @Override
+    protected Flux<?> receive() {
+        // declares the queues from AmqpConfig, which Spring Rabbit otherwise does on its first connection
+        rabbitAdmin.initialize();
+
+        return Flux.using(
+                () -> RabbitFlux.createReceiver(new ReceiverOptions().connectionFactory(connectionFactory.getRabbitConnectionFactory())),
+                receiver -> Flux.merge(
+                        consume(receiver, newOrdersChannel),
+                        consume(receiver, cancelOrdersChannel),
+                        consume(receiver, deliveryOrdersChannel)),
+                Receiver::close);
+    }
+
+    private Flux<?> consume(Receiver receiver, String queue) {
+        // the prefetch matches the concurrency, so the broker stops delivering while all slots are taken
+        return receiver.consumeManualAck(queue, new ConsumeOptions().qos(concurrency))
+                .flatMap(delivery -> process(queue, new String(delivery.getBody(), StandardCharsets.UTF_8), correlationId(delivery),
+                        Mono.fromRunnable(delivery::ack)), concurrency);
+    }
+
+    private String correlationId(Delivery delivery) {
+        Map<String, Object> headers = delivery.getProperties().getHeaders();
+        Object correlationId = headers != null ? headers.get("orderCorrelationId") : null;
+        return correlationId != null ? correlationId.toString() : null;
+    }
+}
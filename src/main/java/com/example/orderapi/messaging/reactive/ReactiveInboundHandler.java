@@ -0,0 +1,59 @@
+package com.example.orderapi.messaging.reactive;
+
+import com.example.orderapi.model.CancelOrderRequest;
+import com.example.orderapi.model.OrderRequest;
+import com.example.orderapi.model.OutForDelivery;
+import com.example.orderapi.service.ReactiveOrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of InboundMessageProcessor: decodes an event and returns the pipeline that handles it.
+// The returned Mono completes when processing, including the outbound publish, has been acknowledged.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "engine", havingValue = "reactive")
+public class ReactiveInboundHandler {
+
+    @Autowired
+    private ReactiveOrderService reactiveOrderService;
+
+    @Value("${channel.new-orders}")
+    private String newOrdersChannel;
+
+    @Value("${channel.to-be-cancelled-orders}")
+    private String cancelOrdersChannel;
+
+    @Value("${channel.out-for-delivery-orders}")
+    private String deliveryOrdersChannel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public Mono<Void> handle(String channel, String payload, String correlationId) {
+        return Mono.defer(() -> {
+                    try {
+                        if (channel.equals(newOrdersChannel)) {
+                            return reactiveOrderService.processNewOrder(objectMapper.readValue(payload, OrderRequest.class), correlationId);
+                        }
+                        if (channel.equals(cancelOrdersChannel)) {
+                            return reactiveOrderService.processCancelOrder(objectMapper.readValue(payload, CancelOrderRequest.class), correlationId);
+                        }
+                        if (channel.equals(deliveryOrdersChannel)) {
+                            return reactiveOrderService.processOrderDelivery(objectMapper.readValue(payload, OutForDelivery.class));
+                        }
+                        return Mono.<Void>error(new IllegalArgumentException("Unexpected channel " + channel));
+                    } catch (Exception e) {
+                        return Mono.<Void>error(e);
+                    }
+                })
+                // like the listeners, a failed event is logged and acknowledged rather than redelivered
+                .onErrorResume(e -> {
+                    log.error("Error processing event from '{}'", channel, e);
+                    return Mono.empty();
+                });
+    }
+}
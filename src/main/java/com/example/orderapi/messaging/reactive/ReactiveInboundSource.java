@@ -0,0 +1,107 @@
+package com.example.orderapi.messaging.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Subscribes a transport's receive pipeline once the context is refreshed, like a listener container.
+// Each pipeline handles at most `concurrency` events at a time and only requests more as they complete,
+// so a slow publisher slows consumption instead of piling up work. Stopping lets the events already
+// being handled finish and be acknowledged; events received after that are left for redelivery.
+@Slf4j
+public abstract class ReactiveInboundSource implements SmartLifecycle {
+
+    @Autowired
+    protected ReactiveInboundHandler handler;
+
+    @Value("${inbound.reactive.concurrency:256}")
+    protected int concurrency;
+
+    @Value("${channel.new-orders}")
+    protected String newOrdersChannel;
+
+    @Value("${channel.to-be-cancelled-orders}")
+    protected String cancelOrdersChannel;
+
+    @Value("${channel.out-for-delivery-orders}")
+    protected String deliveryOrdersChannel;
+
+    @Value("${inbound.reactive.stop-timeout-ms:30000}")
+    protected long stopTimeoutMs;
+
+    private volatile Disposable subscription;
+    private volatile boolean stopping;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    protected abstract String transport();
+
+    protected abstract Flux<?> receive();
+
+    // handles one event and then acknowledges it, counted in flight until both are done
+    protected Mono<Void> process(String channel, String payload, String correlationId, Mono<?> acknowledge) {
+        return Mono.defer(() -> {
+            inFlight.incrementAndGet();
+            if (stopping) {
+                // never acknowledged: the broker redelivers it once the subscription is gone
+                inFlight.decrementAndGet();
+                return Mono.never();
+            }
+            return handler.handle(channel, payload, correlationId)
+                    .then(acknowledge)
+                    .then()
+                    .doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    @Override
+    public void start() {
+        stopping = false;
+        subscription = Flux.defer(this::receive)
+                .doOnError(e -> log.error("Reactive {} intake failed, resubscribing", transport(), e))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+        log.info("Reactive {} intake started with concurrency {}", transport(), concurrency);
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = subscription;
+        if (current == null) {
+            return;
+        }
+        stopping = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(stopTimeoutMs);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (inFlight.get() > 0) {
+            log.warn("Reactive {} intake stopped with {} events still in flight, they will be redelivered", transport(), inFlight.get());
+        }
+        current.dispose();
+        subscription = null;
+        log.info("Reactive {} intake stopped", transport());
+    }
+
+    boolean isStopping() {
+        return stopping;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return subscription != null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.orderapi.messaging.reactive;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnExpression("'${engine:servlet}'.equals('reactive') and '${receive.protocol}'.equals('kafka') and !(${kafka.streams.enabled:false} and '${send.protocol}'.equals('kafka'))")
+public class ReactiveKafkaInbound extends ReactiveInboundSource {
+
+    @Autowired
+    private KafkaProperties kafkaProperties;
+
+    @Override
+    protected String transport() {
+        return "Kafka";
+    }
+
+    @Override
+    protected Flux<?> receive() {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(null);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        ReceiverOptions<String, String> options = ReceiverOptions.<String, String>create(properties)
+                .subscription(List.of(newOrdersChannel, cancelOrdersChannel, deliveryOrdersChannel))
+                // events complete out of order; only offsets below the oldest unfinished one are committed
+                .maxDeferredCommits(concurrency);
+
+        // the receiver pauses its consumer while all `concurrency` slots are taken
+        return KafkaReceiver.create(options)
+                .receive()
+                .flatMap(record -> process(record.topic(), record.value(), correlationId(record),
+                        Mono.fromRunnable(() -> record.receiverOffset().acknowledge())), concurrency);
+    }
+
+    private String correlationId(ReceiverRecord<String, String> record) {
+        Header header = record.headers().lastHeader("orderCorrelationId");
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.orderapi.messaging.reactive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+@Component
+@ConditionalOnExpression("'${engine:servlet}'.equals('reactive') and '${receive.protocol}'.equals('sqs')")
+public class ReactiveSqsInbound extends ReactiveInboundSource {
+
+    private static final int MAX_MESSAGES_PER_RECEIVE = 10;
+    private static final int WAIT_TIME_SECONDS = 20;
+
+    // the asynchronous client Spring Cloud AWS configures for its listener containers
+    @Autowired
+    private SqsAsyncClient sqsAsyncClient;
+
+    @Override
+    protected String transport() {
+        return "SQS";
+    }
+
+    @Override
+    protected Flux<?> receive() {
+        return Flux.merge(
+                consume(newOrdersChannel),
+                consume(cancelOrdersChannel),
+                consume(deliveryOrdersChannel));
+    }
+
+    private Flux<?> consume(String queue) {
+        return Mono.fromFuture(() -> sqsAsyncClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queue).build()))
+                .flatMapMany(queueUrl -> Mono.fromFuture(() -> sqsAsyncClient.receiveMessage(ReceiveMessageRequest.builder()
+                                .queueUrl(queueUrl.queueUrl())
+                                .maxNumberOfMessages(MAX_MESSAGES_PER_RECEIVE)
+                                .waitTimeSeconds(WAIT_TIME_SECONDS)
+                                .messageAttributeNames("All")
+                                .build()))
+                        .repeat()
+                        // one receive ahead at most: the next long poll starts only as events complete
+                        .flatMapIterable(ReceiveMessageResponse::messages, 1)
+                        .flatMap(message -> process(queue, message.body(), correlationId(message),
+                                Mono.fromFuture(() -> sqsAsyncClient.deleteMessage(DeleteMessageRequest.builder()
+                                        .queueUrl(queueUrl.queueUrl())
+                                        .receiptHandle(message.receiptHandle())
+                                        .build()))), concurrency));
+    }
+
+    private String correlationId(Message message) {
+        MessageAttributeValue correlationId = message.messageAttributes().get("orderCorrelationId");
+        return correlationId != null ? correlationId.stringValue() : null;
+    }
+}
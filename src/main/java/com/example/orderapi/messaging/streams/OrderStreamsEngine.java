@@ -0,0 +1,370 @@
+package com.example.orderapi.messaging.streams;
+
+import com.example.orderapi.model.CancelOrderRequest;
+import com.example.orderapi.model.CancellationReference;
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderRequest;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.model.OutForDelivery;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.service.OrderStateMachine;
+import com.example.orderapi.store.shard.ShardUnavailableException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Joined;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Named;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.kstream.Repartitioned;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Properties;
+
+// The Kafka-to-Kafka flow as a Kafka Streams topology. New and cancelled orders are stateless transformations.
+// Deliveries are keyed by order id, joined with the table of totals recorded from new orders, and the
+// resulting shipped orders are kept in the queryable ORDERS_STORE. Partitions, and with them the state,
+// are spread over the stream threads of all instances sharing the application id. With order-lifecycle
+// enabled, every event is keyed by order id and checked against the order's status in LIFECYCLE_STORE, so
+// moves OrderStateMachine would reject, like a delivery after a cancellation, are dropped.
+@Slf4j
+@Component
+@ConditionalOnExpression("${kafka.streams.enabled:false} and '${receive.protocol}'.equals('kafka') and '${send.protocol}'.equals('kafka')")
+public class OrderStreamsEngine implements SmartLifecycle {
+
+    public static final String ORDERS_STORE = "orders";
+    public static final String TOTALS_STORE = "order-totals";
+    public static final String LIFECYCLE_STORE = "order-lifecycle";
+
+    static final String INTERNAL_PATH = "/internal/streams/orders/";
+    public static final String SECRET_HEADER = "X-Streams-Secret";
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${kafka.streams.application-id:${spring.application.name}-streams}")
+    private String applicationId;
+
+    @Value("${kafka.streams.threads:1}")
+    private int streamThreads;
+
+    @Value("${kafka.streams.processing-guarantee:at_least_once}")
+    private String processingGuarantee;
+
+    // host:port other instances reach this one on for interactive queries; empty for a single instance
+    @Value("${kafka.streams.application-server:}")
+    private String applicationServer;
+
+    @Value("${kafka.streams.state-dir:${java.io.tmpdir}/kafka-streams}")
+    private String stateDir;
+
+    @Value("${kafka.streams.query-timeout-ms:2000}")
+    private long queryTimeoutMs;
+
+    // shared by all instances; the internal endpoint rejects requests that do not carry it
+    @Value("${kafka.streams.secret:}")
+    private String secret;
+
+    @Value("${order-lifecycle.enabled:false}")
+    private boolean lifecycleEnabled;
+
+    @Value("${channel.new-orders}")
+    private String newOrdersChannel;
+
+    @Value("${channel.wip-orders}")
+    private String wipOrdersChannel;
+
+    @Value("${channel.to-be-cancelled-orders}")
+    private String cancelOrdersChannel;
+
+    @Value("${channel.cancelled-orders}")
+    private String cancelledOrdersChannel;
+
+    @Value("${channel.out-for-delivery-orders}")
+    private String deliveryOrdersChannel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private volatile KafkaStreams kafkaStreams;
+
+    @PostConstruct
+    public void init() {
+        if (!applicationServer.isEmpty() && secret.isBlank()) {
+            throw new IllegalStateException("kafka.streams.secret must be set with kafka.streams.application-server: it authenticates "
+                    + INTERNAL_PATH);
+        }
+    }
+
+    public Topology buildTopology() {
+        StreamsBuilder builder = new StreamsBuilder();
+        Consumed<String, String> consumed = Consumed.with(Serdes.String(), Serdes.String());
+        Produced<String, String> produced = Produced.with(Serdes.String(), Serdes.String());
+        if (lifecycleEnabled) {
+            builder.addStateStore(Stores.keyValueStoreBuilder(
+                    Stores.persistentKeyValueStore(LIFECYCLE_STORE), Serdes.String(), Serdes.String()));
+        }
+
+        // record headers, the correlation id among them, are carried through to the output records
+        KStream<String, String> newOrders = entering(builder.stream(newOrdersChannel, consumed)
+                .mapValues(value -> initiated(read(value, OrderRequest.class)))
+                .filter((key, order) -> order != null)
+                .map((key, order) -> KeyValue.pair(String.valueOf(order.getId()), write(order))),
+                OrderStatus.INITIATED, "new-orders-by-id");
+
+        newOrders.to(wipOrdersChannel, produced);
+
+        KTable<String, Double> totals = newOrders
+                .mapValues(value -> read(value, Order.class).getTotalAmount())
+                .toTable(Named.as(TOTALS_STORE + "-table"), Materialized.<String, Double, KeyValueStore<Bytes, byte[]>>as(TOTALS_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(Serdes.Double()));
+
+        entering(builder.stream(cancelOrdersChannel, consumed)
+                .mapValues(value -> read(value, CancelOrderRequest.class))
+                .filter((key, cancelRequest) -> cancelRequest != null && cancelRequest.getId() != null)
+                .map((key, cancelRequest) -> KeyValue.pair(String.valueOf(cancelRequest.getId()),
+                        write(new CancellationReference(cancelRequest.getId(), OrderStatus.CANCELLED)))),
+                OrderStatus.CANCELLED, "cancellations-by-id")
+                .to(cancelledOrdersChannel, produced);
+
+        entering(builder.stream(deliveryOrdersChannel, consumed)
+                .selectKey((key, value) -> orderIdOf(value))
+                .filter((orderId, value) -> orderId != null),
+                OrderStatus.SHIPPED, "deliveries-by-id")
+                .leftJoin(totals,
+                        (orderId, value, total) -> write(new Order(Integer.valueOf(orderId),
+                                total != null ? total : OrderService.DEFAULT_TOTAL_AMOUNT, OrderStatus.SHIPPED)),
+                        Joined.with(Serdes.String(), Serdes.String(), Serdes.Double()))
+                .toTable(Named.as(ORDERS_STORE + "-table"), Materialized.<String, String, KeyValueStore<Bytes, byte[]>>as(ORDERS_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(Serdes.String()));
+
+        return builder.build();
+    }
+
+    @Override
+    public void start() {
+        Topology topology = buildTopology();
+        log.debug("Kafka Streams topology: {}", topology.describe());
+
+        KafkaStreams streams = new KafkaStreams(topology, streamsProperties());
+        streams.setUncaughtExceptionHandler(e -> {
+            log.error("Stream thread failed, replacing it", e);
+            return StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse.REPLACE_THREAD;
+        });
+        streams.start();
+        kafkaStreams = streams;
+        log.info("Kafka Streams engine '{}' started with {} stream threads ({})", applicationId, streamThreads, processingGuarantee);
+    }
+
+    @Override
+    public void stop() {
+        KafkaStreams streams = kafkaStreams;
+        if (streams != null) {
+            streams.close(Duration.ofSeconds(30));
+            kafkaStreams = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return kafkaStreams != null;
+    }
+
+    // reads the shipped order from whichever instance hosts its key
+    public Order getOrder(Integer orderId) {
+        KafkaStreams streams = requireStreams();
+        String key = String.valueOf(orderId);
+        if (!applicationServer.isEmpty()) {
+            KeyQueryMetadata metadata = streams.queryMetadataForKey(ORDERS_STORE, key, Serdes.String().serializer());
+            if (metadata == null || metadata == KeyQueryMetadata.NOT_AVAILABLE) {
+                throw new ShardUnavailableException(ORDERS_STORE, null);
+            }
+            HostInfo owner = metadata.activeHost();
+            if (!HostInfo.buildFromEndpoint(applicationServer).equals(owner)) {
+                return fetchRemote(owner, orderId);
+            }
+        }
+        return getLocalOrder(orderId);
+    }
+
+    public boolean isAuthorized(String presented) {
+        return presented != null && !secret.isBlank() && MessageDigest.isEqual(
+                presented.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Order getLocalOrder(Integer orderId) {
+        try {
+            ReadOnlyKeyValueStore<String, String> store = requireStreams().store(
+                    StoreQueryParameters.fromNameAndType(ORDERS_STORE, QueryableStoreTypes.keyValueStore()));
+            String value = store.get(String.valueOf(orderId));
+            return value != null ? read(value, Order.class) : null;
+        } catch (InvalidStateStoreException e) {
+            // the store is closed while its partitions are rebalanced or restored
+            throw new ShardUnavailableException(ORDERS_STORE, e);
+        }
+    }
+
+    Properties streamsProperties() {
+        Properties properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        properties.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, streamThreads);
+        properties.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, processingGuarantee);
+        properties.put(StreamsConfig.STATE_DIR_CONFIG, stateDir);
+        properties.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        properties.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        if (!applicationServer.isEmpty()) {
+            properties.put(StreamsConfig.APPLICATION_SERVER_CONFIG, applicationServer);
+        }
+        return properties;
+    }
+
+    private KafkaStreams requireStreams() {
+        KafkaStreams streams = kafkaStreams;
+        if (streams == null) {
+            throw new ShardUnavailableException(ORDERS_STORE, null);
+        }
+        return streams;
+    }
+
+    private Order fetchRemote(HostInfo owner, Integer orderId) {
+        String ownerUrl = "http://" + owner.host() + ":" + owner.port();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ownerUrl + INTERNAL_PATH + orderId))
+                .timeout(Duration.ofMillis(queryTimeoutMs))
+                .header(SECRET_HEADER, secret)
+                .GET()
+                .build();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 404) {
+                return null;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Unexpected status " + response.statusCode());
+            }
+            return objectMapper.readValue(response.body(), Order.class);
+        } catch (IOException e) {
+            throw new ShardUnavailableException(ownerUrl, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException(ownerUrl, e);
+        }
+    }
+
+    // events keyed by order id are repartitioned, so all of an order's events meet its status on one stream task
+    private KStream<String, String> entering(KStream<String, String> byOrderId, OrderStatus target, String name) {
+        if (!lifecycleEnabled) {
+            return byOrderId;
+        }
+        return byOrderId.repartition(Repartitioned.<String, String>as(name).withKeySerde(Serdes.String()).withValueSerde(Serdes.String()))
+                .processValues(() -> new LifecycleGate(target), Named.as(name + "-lifecycle"), LIFECYCLE_STORE);
+    }
+
+    // an exception thrown in the topology would fail the stream thread on every replacement, so invalid orders are skipped
+    private Order initiated(OrderRequest orderRequest) {
+        if (orderRequest == null) {
+            return null;
+        }
+        if (orderRequest.getId() == null || orderRequest.getOrderItems() == null) {
+            log.error("Skipping new order {} without an id or items", orderRequest.getId());
+            return null;
+        }
+        try {
+            return new Order(orderRequest.getId(), OrderService.totalAmountOf(orderRequest), OrderStatus.INITIATED);
+        } catch (RuntimeException e) {
+            log.error("Skipping new order {} with invalid items", orderRequest.getId(), e);
+            return null;
+        }
+    }
+
+    private String orderIdOf(String value) {
+        OutForDelivery delivery = read(value, OutForDelivery.class);
+        return delivery != null && delivery.getOrderId() != null ? String.valueOf(delivery.getOrderId()) : null;
+    }
+
+    private <T> T read(String value, Class<T> type) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, type);
+        } catch (JsonProcessingException e) {
+            // like the listeners, an unreadable record is logged and skipped
+            log.error("Skipping unreadable {} record", type.getSimpleName(), e);
+            return null;
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + value, e);
+        }
+    }
+
+    // forwards an event only if OrderStateMachine would allow its move, and records the order's new status
+    private static class LifecycleGate implements FixedKeyProcessor<String, String, String> {
+        private final OrderStatus target;
+        private FixedKeyProcessorContext<String, String> context;
+        private KeyValueStore<String, String> statuses;
+
+        LifecycleGate(OrderStatus target) {
+            this.target = target;
+        }
+
+        @Override
+        public void init(FixedKeyProcessorContext<String, String> context) {
+            this.context = context;
+            statuses = context.getStateStore(LIFECYCLE_STORE);
+        }
+
+        @Override
+        public void process(FixedKeyRecord<String, String> record) {
+            String current = statuses.get(record.key());
+            OrderStatus from = current != null ? OrderStatus.valueOf(current) : null;
+            if (!OrderStateMachine.isAllowed(from, target)) {
+                log.warn("Rejected transition of order {} from {} to {}", record.key(), from, target);
+                return;
+            }
+            statuses.put(record.key(), target.name());
+            context.forward(record);
+        }
+    }
+}
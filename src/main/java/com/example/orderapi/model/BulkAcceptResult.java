@@ -0,0 +1,17 @@
+package com.example.orderapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkAcceptResult {
+    private long line;
+    private Integer id;
+    private int status;
+    private String error;
+}
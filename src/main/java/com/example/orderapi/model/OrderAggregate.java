@@ -0,0 +1,14 @@
+package com.example.orderapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderAggregate {
+    private long count;
+    private double amount;
+    private double perSecond;
+}
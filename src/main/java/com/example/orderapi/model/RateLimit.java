@@ -0,0 +1,13 @@
+package com.example.orderapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimit {
+    private double rate;
+    private int burst;
+}
@@ -0,0 +1,16 @@
+package com.example.orderapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowAggregates {
+    private long windowSeconds;
+    private Map<OrderStatus, OrderAggregate> statuses;
+    private double cancellationRate;
+}
@@ -0,0 +1,101 @@
+package com.example.orderapi.service;
+
+import com.example.orderapi.model.OrderAccepted;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "orders.accept.async.enabled", havingValue = "true")
+public class AsyncOrderAcceptor {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${orders.accept.async.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${orders.accept.async.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${orders.accept.async.publish-threads:16}")
+    private int publishThreads;
+
+    private Semaphore pending;
+    private ExecutorService publishExecutor;
+    private Counter rejected;
+    private Counter timedOut;
+
+    @PostConstruct
+    public void init() {
+        pending = new Semaphore(maxPending);
+        // only blocking transports run publishes here; the pending limit bounds its queue
+        publishExecutor = Executors.newFixedThreadPool(publishThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-accept-publish");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        rejected = Counter.builder("orders.accept.rejected")
+                .description("Accept requests turned away because max-pending were already waiting")
+                .register(meterRegistry);
+        timedOut = Counter.builder("orders.accept.timed-out")
+                .description("Accept requests answered 202 before the publisher acknowledged")
+                .register(meterRegistry);
+        Gauge.builder("orders.accept.pending", pending, semaphore -> maxPending - semaphore.availablePermits())
+                .description("Accept requests waiting for the publisher")
+                .register(meterRegistry);
+        log.info("Asynchronous order accept enabled: timeout {} ms, {} pending at most", timeoutMs, maxPending);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publishExecutor.shutdown();
+    }
+
+    public CompletableFuture<Void> accept(OrderAccepted orderAccepted) {
+        if (!pending.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException(maxPending + " order accepts already waiting for the publisher"));
+        }
+
+        CompletableFuture<Void> accepted;
+        try {
+            accepted = orderService.acceptOrderAsync(orderAccepted, publishExecutor);
+        } catch (RuntimeException e) {
+            pending.release();
+            throw e;
+        }
+        // the permit is held until the publish itself settles, even when the caller has timed out
+        accepted.whenComplete((ignored, failure) -> pending.release());
+
+        // on timeout the caller answers 202: the publish goes on and still commits or rolls back the transition
+        return accepted.copy()
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, failure) -> {
+                    if (failure instanceof TimeoutException) {
+                        timedOut.increment();
+                    }
+                });
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.orderapi.service;
+
+import com.example.orderapi.messaging.protocol.PublisherUnavailableException;
+import com.example.orderapi.model.BulkAcceptResult;
+import com.example.orderapi.model.OrderAccepted;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+// Turns one batch of NDJSON lines from a bulk accept request into a single publishBatch and a status per line.
+// Callers read the body a batch at a time, so memory stays bounded by the batch size whatever the body length.
+@Slf4j
+@Component
+public class BulkOrderAcceptor {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${orders.accept.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orders.accept.bulk.max-line-length:4096}")
+    private int maxLineLength;
+
+    private final ObjectReader lineReader = new ObjectMapper().readerFor(OrderAccepted.class);
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    public int maxLineLength() {
+        return maxLineLength;
+    }
+
+    // firstLine is the 1-based number of lines.get(0) in the request body; blank lines get no result. A reader
+    // may cut an over-long line short after maxLineLength + 1 characters, it is rejected all the same
+    public List<BulkAcceptResult> accept(List<String> lines, long firstLine) {
+        List<BulkAcceptResult> results = new ArrayList<>(lines.size());
+        List<OrderAccepted> batch = new ArrayList<>(lines.size());
+        List<BulkAcceptResult> pending = new ArrayList<>(lines.size());
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            BulkAcceptResult result = new BulkAcceptResult(firstLine + i, null, 200, null);
+            results.add(result);
+            if (line.length() > maxLineLength) {
+                reject(result, 413, "Line longer than " + maxLineLength + " characters");
+                continue;
+            }
+            try {
+                OrderAccepted orderAccepted = lineReader.readValue(line);
+                result.setId(orderAccepted.getId());
+                if (orderAccepted.getId() == null || orderAccepted.getStatus() == null) {
+                    reject(result, 400, "id and status are required");
+                    continue;
+                }
+                batch.add(orderAccepted);
+                pending.add(result);
+            } catch (JsonProcessingException e) {
+                reject(result, 400, "Malformed line: " + e.getOriginalMessage());
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            List<Exception> failures = orderService.acceptOrderBatch(batch);
+            for (int i = 0; i < failures.size(); i++) {
+                if (failures.get(i) != null) {
+                    failed(pending.get(i), failures.get(i));
+                }
+            }
+        }
+        return results;
+    }
+
+    private void failed(BulkAcceptResult result, Exception failure) {
+        if (failure instanceof IllegalOrderTransitionException) {
+            reject(result, 409, failure.getMessage());
+        } else if (failure instanceof PublisherUnavailableException) {
+            reject(result, 503, failure.getMessage());
+        } else if (failure instanceof TimeoutException) {
+            // the order stays accepted and the message may still be published, so the line must not be retried
+            reject(result, 202, failure.getMessage());
+        } else {
+            reject(result, 500, "Failed to process update");
+        }
+    }
+
+    private void reject(BulkAcceptResult result, int status, String error) {
+        result.setStatus(status);
+        result.setError(error);
+    }
+}
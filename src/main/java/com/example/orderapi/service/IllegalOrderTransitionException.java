@@ -0,0 +1,10 @@
+package com.example.orderapi.service;
+
+import com.example.orderapi.model.OrderStatus;
+
+public class IllegalOrderTransitionException extends RuntimeException {
+
+    public IllegalOrderTransitionException(Integer orderId, OrderStatus current, OrderStatus target) {
+        super("Order " + orderId + " cannot move from " + current + " to " + target);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.orderapi.service;
+
+import com.example.orderapi.model.OrderAggregate;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.model.WindowAggregates;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class OrderAggregator {
+
+    private static final int SLOTS = 60;
+    // one more than a window spans: the bucket being filled is never read
+    private static final int RING_SIZE = SLOTS + 1;
+    private static final double SCALE = 100.0;
+
+    // per status: 60 completed one-second buckets and 60 completed one-minute buckets
+    private final Map<OrderStatus, Ring> seconds = new EnumMap<>(OrderStatus.class);
+    private final Map<OrderStatus, Ring> minutes = new EnumMap<>(OrderStatus.class);
+
+    public OrderAggregator() {
+        for (OrderStatus status : OrderStatus.values()) {
+            seconds.put(status, new Ring(1_000L));
+            minutes.put(status, new Ring(60_000L));
+        }
+    }
+
+    public void record(OrderStatus status, double amount) {
+        record(status, amount, System.currentTimeMillis());
+    }
+
+    public Map<String, WindowAggregates> snapshot() {
+        return snapshot(System.currentTimeMillis());
+    }
+
+    void record(OrderStatus status, double amount, long now) {
+        long cents = Math.round(amount * SCALE);
+        seconds.get(status).add(now, cents);
+        minutes.get(status).add(now, cents);
+    }
+
+    Map<String, WindowAggregates> snapshot(long now) {
+        Map<String, WindowAggregates> windows = new LinkedHashMap<>();
+        windows.put("1s", window(seconds, now, 1));
+        windows.put("1m", window(seconds, now, SLOTS));
+        windows.put("1h", window(minutes, now, SLOTS));
+        return windows;
+    }
+
+    private WindowAggregates window(Map<OrderStatus, Ring> rings, long now, int buckets) {
+        Ring any = rings.get(OrderStatus.INITIATED);
+        long windowSeconds = buckets * any.bucketMillis / 1_000L;
+
+        Map<OrderStatus, OrderAggregate> statuses = new EnumMap<>(OrderStatus.class);
+        for (Map.Entry<OrderStatus, Ring> entry : rings.entrySet()) {
+            long[] totals = entry.getValue().sum(now, buckets);
+            statuses.put(entry.getKey(), new OrderAggregate(totals[0], totals[1] / SCALE, (double) totals[0] / windowSeconds));
+        }
+
+        long initiated = statuses.get(OrderStatus.INITIATED).getCount();
+        long cancelled = statuses.get(OrderStatus.CANCELLED).getCount();
+        double cancellationRate = initiated == 0 ? 0.0 : (double) cancelled / initiated;
+        return new WindowAggregates(windowSeconds, statuses, cancellationRate);
+    }
+
+    private static final class Ring {
+        final long bucketMillis;
+        // a new period swaps in a fresh bucket, so no add can land in a bucket while it is being cleared
+        final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(RING_SIZE);
+
+        Ring(long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+            for (int i = 0; i < RING_SIZE; i++) {
+                buckets.set(i, new Bucket(-1));
+            }
+        }
+
+        void add(long now, long cents) {
+            long epoch = now / bucketMillis;
+            int index = (int) (epoch % RING_SIZE);
+            Bucket bucket = buckets.get(index);
+            while (bucket.epoch < epoch) {
+                Bucket fresh = new Bucket(epoch);
+                if (buckets.compareAndSet(index, bucket, fresh)) {
+                    bucket = fresh;
+                } else {
+                    bucket = buckets.get(index);
+                }
+            }
+            // a writer whose clock lags the one that recycled the bucket still counts, one period late
+            bucket.count.increment();
+            if (cents != 0) {
+                bucket.cents.add(cents);
+            }
+        }
+
+        // only completed buckets are summed, so a window always covers its full length; it lags by up to one bucket
+        long[] sum(long now, int lastBuckets) {
+            long epoch = now / bucketMillis;
+            long count = 0;
+            long cents = 0;
+            for (int i = 1; i <= lastBuckets; i++) {
+                Bucket bucket = buckets.get((int) ((epoch - i) % RING_SIZE));
+                if (bucket.epoch == epoch - i) {
+                    count += bucket.count.sum();
+                    cents += bucket.cents.sum();
+                }
+            }
+            return new long[]{count, cents};
+        }
+    }
+
+    private static final class Bucket {
+        final long epoch;
+        final LongAdder count = new LongAdder();
+        final LongAdder cents = new LongAdder();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
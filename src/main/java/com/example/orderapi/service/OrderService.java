@@ -1,7 +1,18 @@
 package com.example.orderapi.service;
 
 import com.example.orderapi.model.*;
+import com.example.orderapi.messaging.protocol.BatchPublishException;
 import com.example.orderapi.messaging.protocol.MessagePublisher;
+import com.example.orderapi.messaging.protocol.OutboundMessage;
+import com.example.orderapi.messaging.streams.OrderStreamsEngine;
+import com.example.orderapi.store.OrderChangelog;
+import com.example.orderapi.store.OrderStore;
+import com.example.orderapi.store.OrderTotalsStore;
+import com.example.orderapi.store.SerializedOrder;
+import com.example.orderapi.store.cache.InvalidationBroadcaster;
+import com.example.orderapi.store.cache.NearCache;
+import com.example.orderapi.store.shard.ShardClient;
+import com.example.orderapi.store.shard.ShardRouter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
@@ -9,16 +20,55 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public class OrderService {
 
+    public static final double DEFAULT_TOTAL_AMOUNT = 1000.0;
+
     @Autowired(required = false)
     private MessagePublisher messagePublisher;
 
-    private final ConcurrentHashMap<Integer, Order> orderDatabase = new ConcurrentHashMap<>();
+    @Autowired
+    private OrderStore orderDatabase;
+
+    @Autowired(required = false)
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private OrderTotalsStore orderTotals;
+
+    @Autowired
+    private OrderAggregator orderAggregator;
+
+    @Autowired(required = false)
+    private OrderChangelog orderChangelog;
+
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    @Autowired(required = false)
+    private ShardClient shardClient;
+
+    @Autowired(required = false)
+    private NearCache nearCache;
+
+    @Autowired(required = false)
+    private InvalidationBroadcaster invalidationBroadcaster;
+
+    @Autowired(required = false)
+    private OrderStreamsEngine orderStreamsEngine;
 
     @Value("${channel.wip-orders}")
     private String wipOrdersChannel;
@@ -31,15 +81,25 @@ public class OrderService {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    public static double totalAmountOf(OrderRequest orderRequest) {
+        return orderRequest.getOrderItems().stream()
+                .mapToDouble(item -> item.getPrice() * item.getQuantity())
+                .sum();
+    }
+
     public void processNewOrder(OrderRequest orderRequest, String correlationId) {
         log.info("Processing new order: {}", orderRequest.getId());
-        
+
+        OrderStateMachine.Transition transition = enterState(orderRequest.getId(), OrderStatus.INITIATED);
+        if (transition == OrderStateMachine.REJECTED) {
+            return;
+        }
+
         try {
-            double totalAmount = orderRequest.getOrderItems().stream()
-                    .mapToDouble(item -> item.getPrice() * item.getQuantity())
-                    .sum();
+            double totalAmount = totalAmountOf(orderRequest);
             
             Order order = new Order(orderRequest.getId(), totalAmount, OrderStatus.INITIATED);
+            orderTotals.put(order.getId(), totalAmount);
             
             String payload = objectMapper.writeValueAsString(order);
             
@@ -47,7 +107,9 @@ public class OrderService {
                 messagePublisher.publish(wipOrdersChannel, payload, correlationId);
                 log.info("Order {} initiated with total amount: {}", order.getId(), totalAmount);
             }
+            orderAggregator.record(OrderStatus.INITIATED, totalAmount);
         } catch (Exception e) {
+            rollbackState(orderRequest.getId(), transition);
             log.error("Error processing new order", e);
             throw new RuntimeException("Failed to process new order", e);
         }
@@ -55,7 +117,12 @@ public class OrderService {
 
     public void processCancelOrder(CancelOrderRequest cancelRequest, String correlationId) {
         log.info("Processing cancel order request: {}", cancelRequest.getId());
-        
+
+        OrderStateMachine.Transition transition = enterState(cancelRequest.getId(), OrderStatus.CANCELLED);
+        if (transition == OrderStateMachine.REJECTED) {
+            return;
+        }
+
         try {
             CancellationReference cancellationRef = new CancellationReference(
                     cancelRequest.getId(), 
@@ -67,41 +134,343 @@ public class OrderService {
                 messagePublisher.publish(cancelledOrdersChannel, payload, correlationId);
                 log.info("Order {} cancelled", cancelRequest.getId());
             }
+            orderAggregator.record(OrderStatus.CANCELLED, 0.0);
         } catch (Exception e) {
+            rollbackState(cancelRequest.getId(), transition);
             log.error("Error processing cancel order", e);
             throw new RuntimeException("Failed to process cancel order", e);
         }
     }
 
+    // processNewOrder as a pipeline that completes when the publisher acknowledges, used by the reactive engine
+    public CompletableFuture<Void> processNewOrderAsync(OrderRequest orderRequest, String correlationId, Executor blockingExecutor) {
+        log.info("Processing new order: {}", orderRequest.getId());
+
+        OrderStateMachine.Transition transition = enterState(orderRequest.getId(), OrderStatus.INITIATED);
+        if (transition == OrderStateMachine.REJECTED) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        double totalAmount;
+        CompletableFuture<Void> published;
+        try {
+            totalAmount = totalAmountOf(orderRequest);
+
+            Order order = new Order(orderRequest.getId(), totalAmount, OrderStatus.INITIATED);
+            orderTotals.put(order.getId(), totalAmount);
+
+            published = messagePublisher != null
+                    ? messagePublisher.publishAsync(wipOrdersChannel, objectMapper.writeValueAsString(order), correlationId, blockingExecutor)
+                    : CompletableFuture.completedFuture(null);
+        } catch (RuntimeException | JsonProcessingException e) {
+            rollbackState(orderRequest.getId(), transition);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return published.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                rollbackState(orderRequest.getId(), transition);
+                log.error("Error processing new order", failure);
+                return;
+            }
+            orderAggregator.record(OrderStatus.INITIATED, totalAmount);
+            log.info("Order {} initiated with total amount: {}", orderRequest.getId(), totalAmount);
+        });
+    }
+
+    public CompletableFuture<Void> processCancelOrderAsync(CancelOrderRequest cancelRequest, String correlationId, Executor blockingExecutor) {
+        log.info("Processing cancel order request: {}", cancelRequest.getId());
+
+        OrderStateMachine.Transition transition = enterState(cancelRequest.getId(), OrderStatus.CANCELLED);
+        if (transition == OrderStateMachine.REJECTED) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> published;
+        try {
+            String payload = objectMapper.writeValueAsString(new CancellationReference(cancelRequest.getId(), OrderStatus.CANCELLED));
+            published = messagePublisher != null
+                    ? messagePublisher.publishAsync(cancelledOrdersChannel, payload, correlationId, blockingExecutor)
+                    : CompletableFuture.completedFuture(null);
+        } catch (RuntimeException | JsonProcessingException e) {
+            rollbackState(cancelRequest.getId(), transition);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return published.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                rollbackState(cancelRequest.getId(), transition);
+                log.error("Error processing cancel order", failure);
+                return;
+            }
+            orderAggregator.record(OrderStatus.CANCELLED, 0.0);
+            log.info("Order {} cancelled", cancelRequest.getId());
+        });
+    }
+
     public void processOrderDelivery(OutForDelivery deliveryInfo) {
         log.info("Processing order delivery initiation for order: {}", deliveryInfo.getOrderId());
-        
+
+        OrderStateMachine.Transition transition = enterState(deliveryInfo.getOrderId(), OrderStatus.SHIPPED);
+        if (transition == OrderStateMachine.REJECTED) {
+            return;
+        }
+
         try {
-            Order order = new Order(deliveryInfo.getOrderId(), 1000.0, OrderStatus.SHIPPED);
+            Double totalAmount = orderTotals.get(deliveryInfo.getOrderId());
+            if (totalAmount == null) {
+                log.debug("No total recorded for order {}, using default", deliveryInfo.getOrderId());
+                totalAmount = DEFAULT_TOTAL_AMOUNT;
+            }
+
+            Order order = new Order(deliveryInfo.getOrderId(), totalAmount, OrderStatus.SHIPPED);
             saveOrder(deliveryInfo.getOrderId(), order);
+            orderAggregator.record(OrderStatus.SHIPPED, totalAmount);
 
             log.info("Order {} marked as shipped and saved to database", deliveryInfo.getOrderId());
         } catch (Exception e) {
+            rollbackState(deliveryInfo.getOrderId(), transition);
             log.error("Error processing order delivery", e);
             throw new RuntimeException("Failed to process order delivery", e);
         }
     }
 
     public void acceptOrder(OrderAccepted orderAccepted) throws JsonProcessingException {
-        messagePublisher.publish(
-                acceptedOrdersChannel,
-                objectMapper.writeValueAsString(orderAccepted),
-                "12345"
-        );
+        OrderStateMachine.Transition transition = enterState(orderAccepted.getId(), OrderStatus.ACCEPTED);
+        if (transition == OrderStateMachine.REJECTED) {
+            throw new IllegalOrderTransitionException(
+                    orderAccepted.getId(), orderStateMachine.statusOf(orderAccepted.getId()), OrderStatus.ACCEPTED);
+        }
+
+        try {
+            messagePublisher.publish(
+                    acceptedOrdersChannel,
+                    objectMapper.writeValueAsString(orderAccepted),
+                    "12345"
+            );
+        } catch (RuntimeException | JsonProcessingException e) {
+            rollbackState(orderAccepted.getId(), transition);
+            throw e;
+        }
+        orderAggregator.record(OrderStatus.ACCEPTED, 0.0);
         log.info("Order {} has been accepted", orderAccepted.getId());
     }
 
+    // same as acceptOrder, but completes when the publisher acknowledges instead of blocking until it does
+    public CompletableFuture<Void> acceptOrderAsync(OrderAccepted orderAccepted, Executor blockingExecutor) {
+        OrderStateMachine.Transition transition = enterState(orderAccepted.getId(), OrderStatus.ACCEPTED);
+        if (transition == OrderStateMachine.REJECTED) {
+            return CompletableFuture.failedFuture(new IllegalOrderTransitionException(
+                    orderAccepted.getId(), orderStateMachine.statusOf(orderAccepted.getId()), OrderStatus.ACCEPTED));
+        }
+
+        CompletableFuture<Void> published;
+        try {
+            published = messagePublisher.publishAsync(
+                    acceptedOrdersChannel,
+                    objectMapper.writeValueAsString(orderAccepted),
+                    "12345",
+                    blockingExecutor
+            );
+        } catch (RuntimeException | JsonProcessingException e) {
+            published = CompletableFuture.failedFuture(e);
+        }
+
+        return published.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                rollbackState(orderAccepted.getId(), transition);
+                return;
+            }
+            orderAggregator.record(OrderStatus.ACCEPTED, 0.0);
+            log.info("Order {} has been accepted", orderAccepted.getId());
+        });
+    }
+
+    // accepts every order of the batch with a single publishBatch; the result holds, per order, null when it
+    // was accepted or the failure that rejected it. Publish outcomes are per message: only orders whose
+    // message failed are rolled back, and one whose outcome is unknown (a TimeoutException) stays accepted.
+    public List<Exception> acceptOrderBatch(List<OrderAccepted> batch) {
+        List<Exception> failures = new ArrayList<>(Arrays.asList(new Exception[batch.size()]));
+        OrderStateMachine.Transition[] transitions = new OrderStateMachine.Transition[batch.size()];
+        List<OutboundMessage> messages = new ArrayList<>(batch.size());
+        List<Integer> published = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            OrderAccepted orderAccepted = batch.get(i);
+            transitions[i] = enterState(orderAccepted.getId(), OrderStatus.ACCEPTED);
+            if (transitions[i] == OrderStateMachine.REJECTED) {
+                failures.set(i, new IllegalOrderTransitionException(
+                        orderAccepted.getId(), orderStateMachine.statusOf(orderAccepted.getId()), OrderStatus.ACCEPTED));
+                continue;
+            }
+            try {
+                messages.add(new OutboundMessage(acceptedOrdersChannel, objectMapper.writeValueAsString(orderAccepted), "12345"));
+                published.add(i);
+            } catch (JsonProcessingException e) {
+                rollbackState(orderAccepted.getId(), transitions[i]);
+                failures.set(i, e);
+            }
+        }
+
+        if (messages.isEmpty()) {
+            return failures;
+        }
+
+        List<Exception> outcomes;
+        try {
+            messagePublisher.publishBatch(messages);
+            outcomes = Collections.nCopies(messages.size(), null);
+        } catch (BatchPublishException e) {
+            log.error("Error publishing batch of {} accepted orders", messages.size(), e);
+            outcomes = e.getFailures();
+        } catch (RuntimeException e) {
+            log.error("Error publishing batch of {} accepted orders", messages.size(), e);
+            outcomes = Collections.nCopies(messages.size(), e);
+        }
+
+        int accepted = 0;
+        for (int k = 0; k < published.size(); k++) {
+            int i = published.get(k);
+            Exception outcome = outcomes.get(k);
+            if (outcome == null) {
+                accepted++;
+                orderAggregator.record(OrderStatus.ACCEPTED, 0.0);
+                log.debug("Order {} has been accepted", batch.get(i).getId());
+                continue;
+            }
+            // the message may still reach the broker, so the order keeps its transition
+            if (!(outcome instanceof TimeoutException)) {
+                rollbackState(batch.get(i).getId(), transitions[i]);
+            }
+            failures.set(i, outcome);
+        }
+        log.info("Accepted {} of {} orders in batch", accepted, batch.size());
+        return failures;
+    }
+
     public void saveOrder(Integer orderId, Order order) {
+        if (shardRouter != null && !shardRouter.isLocal(orderId)) {
+            log.info("Forwarding order {} to owning instance {}", orderId, shardRouter.ownerOf(orderId));
+            shardClient.store(shardRouter.ownerOf(orderId), orderId, order);
+            if (nearCache != null) {
+                nearCache.invalidate(orderId);
+            }
+            return;
+        }
+        saveLocalOrder(orderId, order);
+    }
+
+    public void saveLocalOrder(Integer orderId, Order order) {
         log.info("Saving order {} to in-memory database", orderId);
-        orderDatabase.put(orderId, order);
+        orderDatabase.save(orderId, order);
+        if (orderChangelog != null) {
+            orderChangelog.append(orderId, order);
+        }
+        if (invalidationBroadcaster != null) {
+            invalidationBroadcaster.invalidate(orderId);
+        }
     }
 
     public Order getOrder(Integer id) {
+        if (orderStreamsEngine != null) {
+            return orderStreamsEngine.getOrder(id);
+        }
+        if (shardRouter != null && !shardRouter.isLocal(id)) {
+            SerializedOrder remote = fetchRemoteOrder(id);
+            return remote != null ? remote.getOrder() : null;
+        }
+        return getLocalOrder(id);
+    }
+
+    public Order getLocalOrder(Integer id) {
         return orderDatabase.get(id);
     }
+
+    // local orders come with the bytes and ETag built on save, and a remote one with those of its owner; the
+    // version of an order in the Kafka Streams store is not tracked, so it is serialised per request with no ETag
+    public SerializedOrder getSerializedOrder(Integer id) throws JsonProcessingException {
+        if (orderStreamsEngine != null) {
+            Order order = orderStreamsEngine.getOrder(id);
+            return order != null ? new SerializedOrder(order, objectMapper.writeValueAsBytes(order), 0, null) : null;
+        }
+        if (shardRouter != null && !shardRouter.isLocal(id)) {
+            return fetchRemoteOrder(id);
+        }
+        return getLocalSerializedOrder(id);
+    }
+
+    public SerializedOrder getLocalSerializedOrder(Integer id) {
+        return orderDatabase.getSerialized(id);
+    }
+
+    // with sharding every instance contributes its own first page after the cursor; merged by id, the first
+    // limit of them are the page across all shards
+    public List<Order> findOrdersByStatus(OrderStatus status, Integer afterId, int limit) {
+        if (shardRouter == null) {
+            return findLocalOrdersByStatus(status, afterId, limit);
+        }
+        List<Order> orders = new ArrayList<>(findLocalOrdersByStatus(status, afterId, limit));
+        for (String member : shardRouter.otherMembers()) {
+            orders.addAll(shardClient.findByStatus(member, status, afterId, limit));
+        }
+        orders.sort(Comparator.comparing(Order::getId));
+        return orders.size() > limit ? orders.subList(0, limit) : orders;
+    }
+
+    public List<Order> findLocalOrdersByStatus(OrderStatus status, Integer afterId, int limit) {
+        return orderDatabase.findByStatus(status, afterId, limit);
+    }
+
+    // with sharding the export is this instance's orders followed by each peer's, each in id order; a peer is
+    // only contacted once the stream reaches it
+    public Stream<Order> streamOrders(OrderStatus status, Integer fromId, Integer toId) {
+        if (shardRouter == null) {
+            return streamLocalOrders(status, fromId, toId);
+        }
+        List<Supplier<Stream<Order>>> shards = new ArrayList<>();
+        shards.add(() -> streamLocalOrders(status, fromId, toId));
+        for (String member : shardRouter.otherMembers()) {
+            shards.add(() -> shardClient.stream(member, status, fromId, toId));
+        }
+        // flatMap closes each shard's stream, and with it the peer connection, once it is exhausted
+        return shards.stream().flatMap(Supplier::get);
+    }
+
+    public Stream<Order> streamLocalOrders(OrderStatus status, Integer fromId, Integer toId) {
+        return orderDatabase.stream(status, fromId, toId);
+    }
+
+    private OrderStateMachine.Transition enterState(Integer orderId, OrderStatus target) {
+        if (orderStateMachine == null) {
+            return OrderStateMachine.UNTRACKED;
+        }
+        OrderStateMachine.Transition transition = orderStateMachine.transition(orderId, target);
+        if (transition == OrderStateMachine.REJECTED) {
+            log.warn("Rejected transition of order {} from {} to {}", orderId, orderStateMachine.statusOf(orderId), target);
+        }
+        return transition;
+    }
+
+    private void rollbackState(Integer orderId, OrderStateMachine.Transition transition) {
+        if (orderStateMachine != null) {
+            orderStateMachine.rollback(orderId, transition);
+        }
+    }
+
+    private SerializedOrder fetchRemoteOrder(Integer id) {
+        if (nearCache == null) {
+            return shardClient.fetch(shardRouter.ownerOf(id), id);
+        }
+
+        SerializedOrder cached = nearCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long version = nearCache.version(id);
+        SerializedOrder order = shardClient.fetch(shardRouter.ownerOf(id), id);
+        if (order != null) {
+            nearCache.put(id, order, version);
+        }
+        return order;
+    }
 }
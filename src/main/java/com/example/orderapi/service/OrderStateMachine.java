@@ -0,0 +1,302 @@
+package com.example.orderapi.service;
+
+import com.example.orderapi.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.example.orderapi.model.OrderStatus.*;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "order-lifecycle.enabled", havingValue = "true")
+public class OrderStateMachine {
+
+    public static final Transition REJECTED = new Transition(-1L, -1L);
+    public static final Transition UNTRACKED = new Transition(0L, 0L);
+
+    private static final long EMPTY = 0L;
+    private static final long KEY_PRESENT = 1L << 32;
+    // state word: [transition time in epoch millis][16-bit write stamp][3 bits of status ordinal + 1]; the stamp
+    // is bumped on every write to the slot, so two transitions never leave the same word behind
+    private static final int STATE_BITS = 3;
+    private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+    private static final int STAMP_BITS = 16;
+    private static final long STAMP_MASK = (1L << STAMP_BITS) - 1;
+    private static final int TIME_SHIFT = STAMP_BITS + STATE_BITS;
+    private static final int MAX_PROBES = 64;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final int[] ALLOWED_TARGETS = new int[STATUSES.length];
+
+    static {
+        allow(PENDING, INITIATED, ACCEPTED, CANCELLED);
+        allow(INITIATED, ACCEPTED, SHIPPED, CANCELLED);
+        allow(ACCEPTED, SHIPPED, CANCELLED);
+        allow(SHIPPED, DELIVERED);
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // orders expected per generation; each gets twice as many slots to keep probe chains short
+    @Value("${order-lifecycle.capacity:262144}")
+    private int capacity;
+
+    @Value("${order-lifecycle.ttl-ms:86400000}")
+    private long ttlMs;
+
+    // Two generations rotated every half TTL, or early once the current one holds capacity orders. An order
+    // keeps its state while it moves at least once per generation; idle ones are evicted with the older one.
+    private volatile Generation current;
+    private volatile Generation previous;
+    private int slots;
+    private final AtomicLong nextRotation = new AtomicLong();
+
+    private final Map<OrderStatus, Counter> transitions = new EnumMap<>(OrderStatus.class);
+    private Counter rejected;
+    private Counter untracked;
+    private Counter earlyRotations;
+
+    // moves made on a thread between openJournal and closeJournal, newest first, so they can be undone as a unit
+    private final ThreadLocal<Deque<JournalEntry>> journal = new ThreadLocal<>();
+
+    @PostConstruct
+    public void init() {
+        slots = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+        current = new Generation(slots);
+        previous = new Generation(slots);
+        nextRotation.set(System.currentTimeMillis() + ttlMs / 2);
+
+        for (OrderStatus status : STATUSES) {
+            transitions.put(status, meterRegistry.counter("order.lifecycle.transitions", "to", status.name()));
+        }
+        rejected = meterRegistry.counter("order.lifecycle.rejected");
+        untracked = Counter.builder("order.lifecycle.untracked")
+                .description("Moves let through unchecked because the order found no slot")
+                .register(meterRegistry);
+        earlyRotations = Counter.builder("order.lifecycle.rotations.early")
+                .description("Generations retired before their half TTL because they were full")
+                .register(meterRegistry);
+        Gauge.builder("order.lifecycle.size", this, OrderStateMachine::size)
+                .description("Orders whose state is tracked")
+                .register(meterRegistry);
+        log.info("Order lifecycle tracking enabled for {} orders per generation in two generations of {} slots", capacity, slots);
+    }
+
+    /**
+     * Moves the order to {@code target} if that is legal from its current state.
+     * Returns the move (for {@link #rollback}), {@link #UNTRACKED} when the order found no slot, or
+     * {@link #REJECTED} for an illegal move.
+     */
+    public Transition transition(Integer orderId, OrderStatus target) {
+        rotateIfDue();
+        long now = System.currentTimeMillis() << TIME_SHIFT;
+        while (true) {
+            Generation generation = current;
+            int slot = generation.slotOf(orderId, true);
+            if (slot < 0) {
+                untracked.increment();
+                if (generation.warned.compareAndSet(false, true)) {
+                    log.warn("Order lifecycle probe chain is full, order {} is not tracked (counted in order.lifecycle.untracked)", orderId);
+                }
+                return UNTRACKED;
+            }
+
+            long word = generation.states.get(slot);
+            // an order not moved in this generation yet continues from its word in the previous one
+            long from = word != EMPTY ? word : previous.stateWord(orderId);
+            if (from != EMPTY) {
+                int status = (int) (from & STATE_MASK) - 1;
+                if (!isAllowed(STATUSES[status], target)) {
+                    rejected.increment();
+                    return REJECTED;
+                }
+            }
+            long stamp = (((from >>> STATE_BITS) & STAMP_MASK) + 1) & STAMP_MASK;
+            long next = now | (stamp << STATE_BITS) | (target.ordinal() + 1);
+            if (!generation.states.compareAndSet(slot, word, next)) {
+                continue;
+            }
+            if (generation != current) {
+                // rotated mid-move: the new generation may already have copied the old word, so redo it there
+                generation.states.compareAndSet(slot, next, word);
+                continue;
+            }
+
+            transitions.get(target).increment();
+            Transition transition = new Transition(word, next);
+            Deque<JournalEntry> moves = journal.get();
+            if (moves != null) {
+                moves.push(new JournalEntry(orderId, transition));
+            }
+            return transition;
+        }
+    }
+
+    public void rollback(Integer orderId, Transition transition) {
+        if (transition == UNTRACKED || transition == REJECTED) {
+            return;
+        }
+        // only undoes the exact word this move wrote, in whichever generation now holds it; any later transition wins
+        for (Generation generation : new Generation[]{current, previous}) {
+            int slot = generation.slotOf(orderId, false);
+            if (slot >= 0 && generation.states.compareAndSet(slot, transition.written, transition.previous)) {
+                return;
+            }
+        }
+    }
+
+    public void openJournal() {
+        journal.set(new ArrayDeque<>());
+    }
+
+    // undoes the journaled moves of this thread, newest first; a move another thread has since overwritten stays
+    public void rollbackJournal() {
+        Deque<JournalEntry> moves = journal.get();
+        if (moves == null) {
+            return;
+        }
+        while (!moves.isEmpty()) {
+            JournalEntry move = moves.pop();
+            rollback(move.orderId, move.transition);
+        }
+    }
+
+    public void closeJournal() {
+        journal.remove();
+    }
+
+    public OrderStatus statusOf(Integer orderId) {
+        long word = stateWord(orderId);
+        return word != EMPTY ? currentStatus(word) : null;
+    }
+
+    public Instant transitionedAt(Integer orderId) {
+        long word = stateWord(orderId);
+        return word != EMPTY ? Instant.ofEpochMilli(word >>> TIME_SHIFT) : null;
+    }
+
+    public long size() {
+        return current.size.get() + previous.size.get();
+    }
+
+    private long stateWord(Integer orderId) {
+        long word = current.stateWord(orderId);
+        return word != EMPTY ? word : previous.stateWord(orderId);
+    }
+
+    private void rotateIfDue() {
+        long due = nextRotation.get();
+        long now = System.currentTimeMillis();
+        boolean full = current.size.get() >= capacity;
+        if ((now >= due || full) && nextRotation.compareAndSet(due, now + ttlMs / 2)) {
+            if (full && now < due) {
+                earlyRotations.increment();
+                log.warn("Order lifecycle generation reached {} orders, rotating early; orders idle since the last rotation are forgotten", capacity);
+            }
+            previous = current;
+            current = new Generation(slots);
+        }
+    }
+
+    private static OrderStatus currentStatus(long word) {
+        return STATUSES[(int) (word & STATE_MASK) - 1];
+    }
+
+    // a move from no known status is allowed, and so is re-entering the current one, as a redelivery does
+    public static boolean isAllowed(OrderStatus from, OrderStatus target) {
+        return from == null || from == target || (ALLOWED_TARGETS[from.ordinal()] & (1 << target.ordinal())) != 0;
+    }
+
+    private static void allow(OrderStatus from, OrderStatus... targets) {
+        for (OrderStatus target : targets) {
+            ALLOWED_TARGETS[from.ordinal()] |= 1 << target.ordinal();
+        }
+    }
+
+    private static final class Generation {
+        // open-addressed table: keys and state words live in two parallel primitive arrays
+        final AtomicLongArray keys;
+        final AtomicLongArray states;
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicBoolean warned = new AtomicBoolean();
+        final int mask;
+
+        Generation(int slotCount) {
+            keys = new AtomicLongArray(slotCount);
+            states = new AtomicLongArray(slotCount);
+            mask = slotCount - 1;
+        }
+
+        long stateWord(Integer orderId) {
+            int slot = slotOf(orderId, false);
+            return slot >= 0 ? states.get(slot) : EMPTY;
+        }
+
+        int slotOf(Integer orderId, boolean insert) {
+            int id = orderId != null ? orderId : 0;
+            long key = (id & 0xffffffffL) | KEY_PRESENT;
+            int hash = id * 0x9E3779B9;
+            int index = (hash ^ (hash >>> 16)) & mask;
+
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                long current = keys.get(index);
+                if (current == key) {
+                    return index;
+                }
+                if (current == EMPTY) {
+                    if (!insert) {
+                        return -1;
+                    }
+                    if (keys.compareAndSet(index, EMPTY, key)) {
+                        size.incrementAndGet();
+                        return index;
+                    }
+                    if (keys.get(index) == key) {
+                        return index;
+                    }
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+    }
+
+    // a successful move: the state word it replaced and the exact word it wrote
+    public static final class Transition {
+        private final long previous;
+        private final long written;
+
+        private Transition(long previous, long written) {
+            this.previous = previous;
+            this.written = written;
+        }
+    }
+
+    private static final class JournalEntry {
+        private final Integer orderId;
+        private final Transition transition;
+
+        private JournalEntry(Integer orderId, Transition transition) {
+            this.orderId = orderId;
+            this.transition = transition;
+        }
+    }
+}
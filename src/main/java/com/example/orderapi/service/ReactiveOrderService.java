@@ -0,0 +1,122 @@
+package com.example.orderapi.service;
+
+import com.example.orderapi.messaging.streams.OrderStreamsEngine;
+import com.example.orderapi.model.*;
+import com.example.orderapi.store.SerializedOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// OrderService operations as non-blocking pipelines for the reactive engine. Each Mono completes when the
+// publisher has acknowledged, so a slow broker lowers demand upstream instead of tying up threads.
+@Service
+@ConditionalOnProperty(name = "engine", havingValue = "reactive")
+public class ReactiveOrderService {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private BulkOrderAcceptor bulkOrderAcceptor;
+
+    @Autowired(required = false)
+    private OrderStreamsEngine orderStreamsEngine;
+
+    @Value("${sharding.enabled:false}")
+    private boolean sharding;
+
+    @Value("${kafka.streams.application-server:}")
+    private String streamsApplicationServer;
+
+    @Value("${orders.accept.async.max-pending:10000}")
+    private int maxPendingAccepts;
+
+    private final AtomicInteger pendingAccepts = new AtomicInteger();
+
+    // only publishers without an asynchronous client, and reads that may reach another instance, run here
+    private final Scheduler blockingScheduler = Schedulers.boundedElastic();
+    private final Executor blockingExecutor = blockingScheduler::schedule;
+
+    public Mono<Void> processNewOrder(OrderRequest orderRequest, String correlationId) {
+        return Mono.fromFuture(() -> orderService.processNewOrderAsync(orderRequest, correlationId, blockingExecutor));
+    }
+
+    public Mono<Void> processCancelOrder(CancelOrderRequest cancelRequest, String correlationId) {
+        return Mono.fromFuture(() -> orderService.processCancelOrderAsync(cancelRequest, correlationId, blockingExecutor));
+    }
+
+    public Mono<Void> processOrderDelivery(OutForDelivery deliveryInfo) {
+        return offloadIfRemote(Mono.fromRunnable(() -> orderService.processOrderDelivery(deliveryInfo)));
+    }
+
+    // a caller that stops waiting must not cancel the publish, which then settles the order state on its own;
+    // its pending slot is held until then, so callers that time out cannot pile up publishes past max-pending
+    public Mono<Void> acceptOrder(OrderAccepted orderAccepted) {
+        return Mono.defer(() -> {
+            if (pendingAccepts.incrementAndGet() > maxPendingAccepts) {
+                pendingAccepts.decrementAndGet();
+                return Mono.error(new RejectedExecutionException(maxPendingAccepts + " order accepts already waiting for the publisher"));
+            }
+            CompletableFuture<Void> accepted;
+            try {
+                accepted = orderService.acceptOrderAsync(orderAccepted, blockingExecutor);
+            } catch (RuntimeException e) {
+                pendingAccepts.decrementAndGet();
+                return Mono.error(e);
+            }
+            accepted.whenComplete((ignored, failure) -> pendingAccepts.decrementAndGet());
+            return Mono.fromFuture(accepted, true);
+        });
+    }
+
+    public int pendingAccepts() {
+        return pendingAccepts.get();
+    }
+
+    // a batch is published with publishBatch, which has no asynchronous variant
+    public Mono<List<BulkAcceptResult>> acceptBatch(List<String> lines, long firstLine) {
+        return Mono.fromCallable(() -> bulkOrderAcceptor.accept(lines, firstLine)).subscribeOn(blockingScheduler);
+    }
+
+    public int bulkBatchSize() {
+        return bulkOrderAcceptor.batchSize();
+    }
+
+    public Mono<Order> getOrder(Integer id) {
+        return offloadIfRemote(Mono.fromCallable(() -> orderService.getOrder(id)));
+    }
+
+    public Mono<SerializedOrder> getSerializedOrder(Integer id) {
+        return offloadIfRemote(Mono.fromCallable(() -> orderService.getSerializedOrder(id)));
+    }
+
+    public Mono<List<Order>> findOrdersByStatus(OrderStatus status, Integer afterId, int limit) {
+        return offloadIfRemote(Mono.fromCallable(() -> orderService.findOrdersByStatus(status, afterId, limit)));
+    }
+
+    public Flux<Order> streamOrders(OrderStatus status, Integer fromId, Integer toId) {
+        Flux<Order> orders = Flux.fromStream(() -> orderService.streamOrders(status, fromId, toId));
+        // each element pulled from a peer's stream may block on its connection
+        return sharding ? orders.subscribeOn(blockingScheduler) : orders;
+    }
+
+    private <T> Mono<T> offloadIfRemote(Mono<T> operation) {
+        // a peer shard or another Kafka Streams instance is reached over blocking HTTP; local store access is in-memory
+        return reachesPeers() ? operation.subscribeOn(blockingScheduler) : operation;
+    }
+
+    private boolean reachesPeers() {
+        return sharding || (orderStreamsEngine != null && !streamsApplicationServer.isEmpty());
+    }
+}
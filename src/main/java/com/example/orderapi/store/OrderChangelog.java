@@ -0,0 +1,286 @@
+package com.example.orderapi.store;
+
+import com.example.orderapi.model.Order;
+import com.example.orderapi.store.shard.ShardRouter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "changelog.enabled", havingValue = "true")
+public class OrderChangelog {
+
+    @Autowired
+    private OrderStore orderStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // with sharding, only the orders this instance owns are restored
+    @Autowired(required = false)
+    private ShardRouter shardRouter;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${changelog.topic:orders-changelog}")
+    private String topic;
+
+    @Value("${changelog.partitions:6}")
+    private int partitions;
+
+    @Value("${changelog.replication-factor:1}")
+    private short replicationFactor;
+
+    @Value("${changelog.restore.threads:6}")
+    private int restoreThreads;
+
+    @Value("${changelog.restore.max-poll-records:10000}")
+    private int maxPollRecords;
+
+    @Value("${changelog.restore.fetch-bytes:16777216}")
+    private int fetchBytes;
+
+    // startup fails if the topic cannot be created and read to its end offsets within this time
+    @Value("${changelog.restore.timeout-ms:300000}")
+    private long restoreTimeoutMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private KafkaProducer<String, String> producer;
+
+    private final AtomicLong restoredRecords = new AtomicLong();
+    private final AtomicLong skippedRecords = new AtomicLong();
+    private volatile long restoreMillis;
+
+    @PostConstruct
+    public void init() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(restoreTimeoutMs);
+        createTopicIfMissing(deadline);
+        producer = new KafkaProducer<>(producerProperties());
+
+        Gauge.builder("order.changelog.restore.records", restoredRecords, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("order.changelog.restore.duration.ms", this, changelog -> changelog.restoreMillis).register(meterRegistry);
+        Gauge.builder("order.changelog.restore.skipped", skippedRecords, AtomicLong::get).register(meterRegistry);
+
+        // runs while the bean graph is built, i.e. before any listener is started or readiness is reported
+        restore(deadline);
+    }
+
+    public void append(Integer orderId, Order order) {
+        try {
+            producer.send(new ProducerRecord<>(topic, String.valueOf(orderId), objectMapper.writeValueAsString(order)),
+                    (metadata, exception) -> {
+                        if (exception != null) {
+                            log.error("Error writing order {} to changelog", orderId, exception);
+                        }
+                    });
+        } catch (Exception e) {
+            log.error("Error writing order {} to changelog", orderId, e);
+            throw new RuntimeException("Failed to write order to changelog", e);
+        }
+    }
+
+    public long restoredRecords() {
+        return restoredRecords.get();
+    }
+
+    public long skippedRecords() {
+        return skippedRecords.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (producer != null) {
+            producer.close(Duration.ofSeconds(10));
+        }
+    }
+
+    private void restore(long deadline) throws InterruptedException, ExecutionException {
+        long started = System.nanoTime();
+        List<TopicPartition> topicPartitions = new ArrayList<>();
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProperties())) {
+            for (PartitionInfo partition : consumer.partitionsFor(topic, remaining(deadline))) {
+                topicPartitions.add(new TopicPartition(topic, partition.partition()));
+            }
+        } catch (org.apache.kafka.common.errors.TimeoutException e) {
+            throw restoreTimedOut(e);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(restoreThreads, topicPartitions.size())));
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (TopicPartition partition : topicPartitions) {
+                results.add(executor.submit(() -> restorePartition(partition, deadline)));
+            }
+            for (Future<Long> result : results) {
+                restoredRecords.addAndGet(result.get(remaining(deadline).toMillis(), TimeUnit.MILLISECONDS));
+            }
+        } catch (TimeoutException e) {
+            throw restoreTimedOut(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalStateException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        restoreMillis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+        long perSecond = restoreMillis > 0 ? restoredRecords.get() * 1000 / restoreMillis : restoredRecords.get();
+        log.info("Restored {} changelog records from {} partitions of '{}' in {} ms ({} records/s, {} skipped), store holds {} orders",
+                restoredRecords.get(), topicPartitions.size(), topic, restoreMillis, perSecond, skippedRecords.get(), orderStore.size());
+    }
+
+    private long restorePartition(TopicPartition partition, long deadline) {
+        long restored = 0;
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProperties())) {
+            consumer.assign(List.of(partition));
+            consumer.seekToBeginning(List.of(partition));
+            long endOffset = consumer.endOffsets(List.of(partition), remaining(deadline)).get(partition);
+
+            while (consumer.position(partition, remaining(deadline)) < endOffset) {
+                if (System.nanoTime() >= deadline) {
+                    throw new IllegalStateException("Changelog partition " + partition + " was not restored to offset "
+                            + endOffset + " within " + restoreTimeoutMs + " ms (changelog.restore.timeout-ms)");
+                }
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
+                for (ConsumerRecord<String, String> record : records) {
+                    if (record.value() == null) {
+                        continue;
+                    }
+                    Integer orderId = orderIdOf(record);
+                    if (orderId != null && shardRouter != null && !shardRouter.isLocal(orderId)) {
+                        continue;
+                    }
+                    if (orderId != null && restoreRecord(orderId, record)) {
+                        restored++;
+                    } else {
+                        skippedRecords.incrementAndGet();
+                    }
+                }
+            }
+        } catch (org.apache.kafka.common.errors.TimeoutException e) {
+            throw restoreTimedOut(e);
+        }
+        log.debug("Restored {} records from {}", restored, partition);
+        return restored;
+    }
+
+    private Integer orderIdOf(ConsumerRecord<String, String> record) {
+        try {
+            return Integer.valueOf(record.key());
+        } catch (NumberFormatException e) {
+            log.warn("Skipping changelog record at {}-{} offset {} with key '{}'",
+                    record.topic(), record.partition(), record.offset(), record.key(), e);
+            return null;
+        }
+    }
+
+    // a record that is not an order keyed by its id is skipped rather than failing the whole restore
+    private boolean restoreRecord(Integer orderId, ConsumerRecord<String, String> record) {
+        try {
+            orderStore.save(orderId, objectMapper.readValue(record.value(), Order.class));
+            return true;
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping changelog record at {}-{} offset {} with key '{}'",
+                    record.topic(), record.partition(), record.offset(), record.key(), e);
+            return false;
+        }
+    }
+
+    private Duration remaining(long deadline) {
+        return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+
+    private IllegalStateException restoreTimedOut(Exception cause) {
+        return new IllegalStateException("Changelog '" + topic + "' was not restored within " + restoreTimeoutMs
+                + " ms (changelog.restore.timeout-ms); is " + bootstrapServers + " reachable?", cause);
+    }
+
+    private void createTopicIfMissing(long deadline) throws InterruptedException, ExecutionException {
+        Properties properties = new Properties();
+        properties.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // also bounds how long closing the client waits for a request to an unreachable broker
+        int timeoutMs = (int) Math.min(Integer.MAX_VALUE, restoreTimeoutMs);
+        properties.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, timeoutMs);
+        properties.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, Math.min(timeoutMs, 30_000));
+
+        try (AdminClient adminClient = AdminClient.create(properties)) {
+            NewTopic changelogTopic = new NewTopic(topic, partitions, replicationFactor)
+                    .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+            adminClient.createTopics(List.of(changelogTopic)).all().get(remaining(deadline).toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Created compacted changelog topic '{}' with {} partitions", topic, partitions);
+        } catch (TimeoutException e) {
+            throw restoreTimedOut(e);
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof TopicExistsException)) {
+                throw e;
+            }
+        }
+    }
+
+    private Properties producerProperties() {
+        Properties properties = new Properties();
+        properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.ACKS_CONFIG, "all");
+        properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        return properties;
+    }
+
+    private Properties consumerProperties() {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        properties.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, fetchBytes);
+        properties.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, fetchBytes);
+        properties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1024 * 1024);
+        properties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100);
+        return properties;
+    }
+}
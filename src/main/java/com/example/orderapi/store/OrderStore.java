@@ -0,0 +1,109 @@
+package com.example.orderapi.store;
+
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class OrderStore {
+
+    private final ConcurrentHashMap<Integer, SerializedOrder> orders = new ConcurrentHashMap<>();
+
+    private final Map<OrderStatus, NavigableSet<Integer>> statusIndex = new EnumMap<>(OrderStatus.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // versions restart with the process, so the ETag also carries when this store was created
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public OrderStore() {
+        for (OrderStatus status : OrderStatus.values()) {
+            statusIndex.put(status, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    public void save(Integer orderId, Order order) {
+        // serialised once here, outside the lock, so reads can write the bytes as they are
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize order " + orderId, e);
+        }
+
+        // compute() serialises writers of the same id, which keeps the index and the version in step with the map
+        orders.compute(orderId, (id, previous) -> {
+            Order previousOrder = previous != null ? previous.getOrder() : null;
+            if (previousOrder != null && previousOrder.getStatus() != null && previousOrder.getStatus() != order.getStatus()) {
+                statusIndex.get(previousOrder.getStatus()).remove(id);
+            }
+            if (order.getStatus() != null) {
+                statusIndex.get(order.getStatus()).add(id);
+            }
+            long version = previous != null ? previous.getVersion() + 1 : 1;
+            return new SerializedOrder(order, json, version, "\"" + epoch + "-" + version + "\"");
+        });
+    }
+
+    public Order get(Integer orderId) {
+        SerializedOrder serialized = orders.get(orderId);
+        return serialized != null ? serialized.getOrder() : null;
+    }
+
+    public SerializedOrder getSerialized(Integer orderId) {
+        return orders.get(orderId);
+    }
+
+    public List<Order> findByStatus(OrderStatus status, Integer afterId, int limit) {
+        NavigableSet<Integer> ids = statusIndex.get(status);
+        if (afterId != null) {
+            ids = ids.tailSet(afterId, false);
+        }
+
+        List<Order> page = new ArrayList<>(Math.min(limit, 256));
+        for (Integer id : ids) {
+            if (page.size() >= limit) {
+                break;
+            }
+            Order order = get(id);
+            // an entry can move to another status between reading the index and the map
+            if (order != null && order.getStatus() == status) {
+                page.add(order);
+            }
+        }
+        return page;
+    }
+
+    public Stream<Order> stream(OrderStatus status, Integer fromId, Integer toId) {
+        int from = fromId != null ? fromId : Integer.MIN_VALUE;
+        int to = toId != null ? toId : Integer.MAX_VALUE;
+
+        if (status != null) {
+            return statusIndex.get(status).subSet(from, true, to, true).stream()
+                    .map(this::get)
+                    .filter(order -> order != null && order.getStatus() == status);
+        }
+
+        // weakly consistent view over the live map, nothing is copied
+        return orders.values().stream()
+                .map(SerializedOrder::getOrder)
+                .filter(order -> order.getId() != null && order.getId() >= from && order.getId() <= to);
+    }
+
+    public int size() {
+        return orders.size();
+    }
+}
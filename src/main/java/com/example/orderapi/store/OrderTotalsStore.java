@@ -0,0 +1,185 @@
+package com.example.orderapi.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Slf4j
+@Component
+public class OrderTotalsStore {
+
+    private static final int EMPTY_KEY = Integer.MIN_VALUE;
+    private static final int MAX_PROBES = 32;
+    private static final double SCALE = 100.0;
+    private static final long MAX_CENTS = 0xffffffffL;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // orders expected per half TTL; each generation gets twice as many 8-byte slots to keep probe chains short
+    @Value("${order-totals.capacity:1048576}")
+    private int capacity;
+
+    @Value("${order-totals.ttl-ms:3600000}")
+    private long ttlMs;
+
+    // Two generations each live for half the TTL; dropping the older one evicts everything in it at once
+    private volatile Generation current;
+    private volatile Generation previous;
+    private final AtomicLong nextRotation = new AtomicLong();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        int slots = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+        current = new Generation(slots);
+        previous = new Generation(slots);
+        nextRotation.set(System.currentTimeMillis() + ttlMs / 2);
+
+        hits = meterRegistry.counter("order.totals.lookups", "result", "hit");
+        misses = meterRegistry.counter("order.totals.lookups", "result", "miss");
+        dropped = Counter.builder("order.totals.dropped")
+                .description("Totals not stored because the generation was full or the amount does not fit; deliveries fall back to the default")
+                .register(meterRegistry);
+        Gauge.builder("order.totals.size", this, OrderTotalsStore::size)
+                .description("Order totals held for joining with delivery events")
+                .register(meterRegistry);
+        Gauge.builder("order.totals.hit.ratio", this, OrderTotalsStore::hitRatio)
+                .register(meterRegistry);
+        log.info("Order totals table sized for {} orders per generation: {} MB in two generations of {} slots",
+                capacity, 2L * slots * Long.BYTES >> 20, slots);
+    }
+
+    public void put(Integer orderId, double totalAmount) {
+        if (orderId == null || orderId == EMPTY_KEY) {
+            return;
+        }
+        rotateIfDue();
+        long cents = Math.round(totalAmount * SCALE);
+        Generation generation = current;
+        if (cents < 0 || cents > MAX_CENTS || !generation.put(orderId, cents)) {
+            dropped.increment();
+            if (generation.warned.compareAndSet(false, true)) {
+                log.warn("Dropping order totals (first: order {}, total {}); {} held in the current generation",
+                        orderId, totalAmount, generation.size.get());
+            }
+        }
+    }
+
+    public Double get(Integer orderId) {
+        if (orderId == null || orderId == EMPTY_KEY) {
+            return null;
+        }
+        rotateIfDue();
+        long cents = current.get(orderId);
+        if (cents == Generation.ABSENT) {
+            cents = previous.get(orderId);
+        }
+        if (cents == Generation.ABSENT) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cents / SCALE;
+    }
+
+    public long size() {
+        return current.size.get() + previous.size.get();
+    }
+
+    public long droppedCount() {
+        return (long) dropped.count();
+    }
+
+    private double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0.0 : hits.count() / lookups;
+    }
+
+    private void rotateIfDue() {
+        long due = nextRotation.get();
+        long now = System.currentTimeMillis();
+        if (now >= due && nextRotation.compareAndSet(due, now + ttlMs / 2)) {
+            previous = current;
+            current = new Generation(previous.slots.length());
+        }
+    }
+
+    private static final class Generation {
+        static final long ABSENT = -1L;
+
+        // one 8-byte word per slot: [order id ^ EMPTY_KEY][unsigned 32-bit cents], so a zeroed slot is empty
+        // and key and total are published together; no per-entry objects
+        final AtomicLongArray slots;
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicBoolean warned = new AtomicBoolean();
+        final int mask;
+
+        Generation(int slotCount) {
+            slots = new AtomicLongArray(slotCount);
+            mask = slotCount - 1;
+        }
+
+        boolean put(int orderId, long cents) {
+            long key = keyOf(orderId);
+            long word = key | cents;
+            int index = indexOf(orderId);
+            for (int probe = 0; probe < MAX_PROBES; ) {
+                long current = slots.get(index);
+                if (current == 0L) {
+                    if (slots.compareAndSet(index, 0L, word)) {
+                        size.incrementAndGet();
+                        return true;
+                    }
+                    // lost the slot to a concurrent put, look at it again
+                    continue;
+                }
+                if ((current & ~MAX_CENTS) == key) {
+                    slots.set(index, word);
+                    return true;
+                }
+                index = (index + 1) & mask;
+                probe++;
+            }
+            return false;
+        }
+
+        long get(int orderId) {
+            long key = keyOf(orderId);
+            int index = indexOf(orderId);
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                long current = slots.get(index);
+                if (current == 0L) {
+                    return ABSENT;
+                }
+                if ((current & ~MAX_CENTS) == key) {
+                    return current & MAX_CENTS;
+                }
+                index = (index + 1) & mask;
+            }
+            return ABSENT;
+        }
+
+        private static long keyOf(int orderId) {
+            return (long) (orderId ^ EMPTY_KEY) << 32;
+        }
+
+        private int indexOf(int orderId) {
+            int hash = orderId * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.orderapi.store;
+
+import com.example.orderapi.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// An order together with its JSON body and the ETag of this version, built once when the order is saved
+@Data
+@AllArgsConstructor
+public class SerializedOrder {
+    private Order order;
+    private byte[] json;
+    private long version;
+    private String etag;
+}
@@ -0,0 +1,67 @@
+package com.example.orderapi.store.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("'${near-cache.enabled:false}'.equals('true') and '${near-cache.transport:${send.protocol}}'.equals('amqp')")
+public class AmqpInvalidationTransport implements InvalidationTransport {
+
+    private final ConnectionFactory connectionFactory;
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${channel.order-invalidations}")
+    private String invalidationsChannel;
+
+    private SimpleMessageListenerContainer container;
+
+    public AmqpInvalidationTransport(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+        this.rabbitTemplate = new RabbitTemplate(connectionFactory);
+    }
+
+    @Override
+    public void publish(String payload) {
+        rabbitTemplate.send(invalidationsChannel, "", MessageBuilder.withBody(payload.getBytes(StandardCharsets.UTF_8)).build());
+    }
+
+    @Override
+    public void subscribe(Consumer<String> handler) {
+        // fanout exchange with an exclusive, auto-deleted queue per instance
+        RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+        FanoutExchange exchange = new FanoutExchange(invalidationsChannel, false, false);
+        Queue queue = new AnonymousQueue();
+        admin.declareExchange(exchange);
+        admin.declareQueue(queue);
+        admin.declareBinding(BindingBuilder.bind(queue).to(exchange));
+
+        container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueues(queue);
+        container.setMessageListener(message -> handler.accept(new String(message.getBody(), StandardCharsets.UTF_8)));
+        container.start();
+        log.info("Subscribed to near-cache invalidations on AMQP exchange '{}'", invalidationsChannel);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.orderapi.store.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "near-cache.enabled", havingValue = "true")
+public class InvalidationBroadcaster {
+
+    @Autowired
+    private NearCache nearCache;
+
+    @Autowired
+    private InvalidationTransport transport;
+
+    @Value("${near-cache.invalidation.batch-ms:10}")
+    private long batchMs;
+
+    @Value("${near-cache.invalidation.max-batch:1000}")
+    private int maxBatch;
+
+    private final Object bufferLock = new Object();
+    private int[] pending;
+    private int pendingCount;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        pending = new int[maxBatch];
+        transport.subscribe(this::onInvalidation);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "near-cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, batchMs, batchMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void invalidate(int orderId) {
+        nearCache.invalidate(orderId);
+        String payload = null;
+        synchronized (bufferLock) {
+            pending[pendingCount++] = orderId;
+            if (pendingCount == pending.length) {
+                payload = drain();
+            }
+        }
+        if (payload != null) {
+            publish(payload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+
+    private void flush() {
+        String payload;
+        synchronized (bufferLock) {
+            payload = drain();
+        }
+        if (payload != null) {
+            publish(payload);
+        }
+    }
+
+    private String drain() {
+        if (pendingCount == 0) {
+            return null;
+        }
+        // ids as comma separated decimals, e.g. "12,981,4410"
+        StringBuilder payload = new StringBuilder(pendingCount * 8);
+        for (int i = 0; i < pendingCount; i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append(pending[i]);
+        }
+        pendingCount = 0;
+        return payload.toString();
+    }
+
+    private void publish(String payload) {
+        try {
+            transport.publish(payload);
+        } catch (Exception e) {
+            log.error("Error broadcasting near-cache invalidations", e);
+        }
+    }
+
+    private void onInvalidation(String payload) {
+        int id = 0;
+        boolean negative = false;
+        boolean inNumber = false;
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            if (c == '-') {
+                negative = true;
+            } else if (c >= '0' && c <= '9') {
+                id = id * 10 + (c - '0');
+                inNumber = true;
+            } else if (inNumber) {
+                nearCache.invalidate(negative ? -id : id);
+                id = 0;
+                negative = false;
+                inNumber = false;
+            }
+        }
+        if (inNumber) {
+            nearCache.invalidate(negative ? -id : id);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.orderapi.store.cache;
+
+import java.util.function.Consumer;
+
+public interface InvalidationTransport {
+    void publish(String payload);
+
+    void subscribe(Consumer<String> handler);
+}
@@ -0,0 +1,63 @@
+package com.example.orderapi.store.cache;
+
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.TextMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("'${near-cache.enabled:false}'.equals('true') and '${near-cache.transport:${send.protocol}}'.equals('jms')")
+public class JmsInvalidationTransport implements InvalidationTransport {
+
+    private final ConnectionFactory connectionFactory;
+    private final JmsTemplate topicTemplate;
+
+    @Value("${channel.order-invalidations}")
+    private String invalidationsChannel;
+
+    private DefaultMessageListenerContainer container;
+
+    public JmsInvalidationTransport(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+        this.topicTemplate = new JmsTemplate(connectionFactory);
+        this.topicTemplate.setPubSubDomain(true);
+    }
+
+    @Override
+    public void publish(String payload) {
+        topicTemplate.convertAndSend(invalidationsChannel, payload);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> handler) {
+        container = new DefaultMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setDestinationName(invalidationsChannel);
+        container.setPubSubDomain(true);
+        container.setMessageListener((jakarta.jms.MessageListener) message -> {
+            try {
+                handler.accept(((TextMessage) message).getText());
+            } catch (Exception e) {
+                log.error("Error reading near-cache invalidations from JMS", e);
+            }
+        });
+        container.afterPropertiesSet();
+        container.start();
+        log.info("Subscribed to near-cache invalidations on JMS topic '{}'", invalidationsChannel);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (container != null) {
+            container.shutdown();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.orderapi.store.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("'${near-cache.enabled:false}'.equals('true') and '${near-cache.transport:${send.protocol}}'.equals('kafka')")
+public class KafkaInvalidationTransport implements InvalidationTransport {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ConsumerFactory<String, String> consumerFactory;
+
+    @Value("${channel.order-invalidations}")
+    private String invalidationsChannel;
+
+    private KafkaMessageListenerContainer<String, String> container;
+
+    public KafkaInvalidationTransport(KafkaTemplate<String, String> kafkaTemplate, ConsumerFactory<String, String> consumerFactory) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.consumerFactory = consumerFactory;
+    }
+
+    @Override
+    public void publish(String payload) {
+        kafkaTemplate.send(invalidationsChannel, payload);
+    }
+
+    @Override
+    public void subscribe(Consumer<String> handler) {
+        ContainerProperties properties = new ContainerProperties(invalidationsChannel);
+        // a group of its own per instance turns the topic into a broadcast
+        properties.setGroupId("order-api-near-cache-" + UUID.randomUUID());
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        properties.setKafkaConsumerProperties(consumerProperties);
+        properties.setMessageListener((MessageListener<String, String>) record -> handler.accept(record.value()));
+
+        container = new KafkaMessageListenerContainer<>(consumerFactory, properties);
+        container.start();
+        log.info("Subscribed to near-cache invalidations on Kafka topic '{}'", invalidationsChannel);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.orderapi.store.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+@ConditionalOnExpression("'${near-cache.enabled:false}'.equals('true') and '${near-cache.transport:${send.protocol}}'.equals('mqtt')")
+public class MqttInvalidationTransport implements InvalidationTransport {
+
+    @Value("${mqtt.broker-url}")
+    private String brokerUrl;
+
+    @Value("${mqtt.client-id}")
+    private String clientId;
+
+    @Value("${channel.order-invalidations}")
+    private String invalidationsChannel;
+
+    private MqttClient mqttClient;
+
+    @PostConstruct
+    public void init() {
+        try {
+            mqttClient = new MqttClient(brokerUrl, clientId + "-near-cache");
+            MqttConnectOptions options = new MqttConnectOptions();
+            options.setCleanSession(true);
+            options.setAutomaticReconnect(true);
+            mqttClient.connect(options);
+        } catch (MqttException e) {
+            log.error("Error connecting MQTT near-cache client", e);
+            throw new RuntimeException("Failed to connect MQTT near-cache client", e);
+        }
+    }
+
+    @Override
+    public void publish(String payload) {
+        try {
+            MqttMessage message = new MqttMessage(payload.getBytes(StandardCharsets.UTF_8));
+            message.setQos(1);
+            mqttClient.publish(invalidationsChannel, message);
+        } catch (MqttException e) {
+            throw new RuntimeException("Failed to publish near-cache invalidations to MQTT", e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> handler) {
+        try {
+            mqttClient.subscribe(invalidationsChannel, 1,
+                    (topic, message) -> handler.accept(new String(message.getPayload(), StandardCharsets.UTF_8)));
+            log.info("Subscribed to near-cache invalidations on MQTT topic '{}'", invalidationsChannel);
+        } catch (MqttException e) {
+            throw new RuntimeException("Failed to subscribe to near-cache invalidations on MQTT", e);
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        try {
+            if (mqttClient != null && mqttClient.isConnected()) {
+                mqttClient.disconnect();
+                mqttClient.close();
+            }
+        } catch (MqttException e) {
+            log.error("Error disconnecting MQTT near-cache client", e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.orderapi.store.cache;
+
+import com.example.orderapi.store.SerializedOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "near-cache.enabled", havingValue = "true")
+public class NearCache {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${near-cache.max-size:100000}")
+    private int maxSize;
+
+    // reads never lock: a hit only sets the entry's reference bit, which the CLOCK eviction below consults
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    // bumped on every invalidation so a fetch that raced with one is not cached
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    // the clock hand, a weakly consistent iterator over the entries; only inserting threads over the limit move it
+    private final Object evictionLock = new Object();
+    private Iterator<Entry> hand = Collections.emptyIterator();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+    private Counter invalidations;
+
+    @PostConstruct
+    public void init() {
+        hits = meterRegistry.counter("order.near-cache.lookups", "result", "hit");
+        misses = meterRegistry.counter("order.near-cache.lookups", "result", "miss");
+        evictions = meterRegistry.counter("order.near-cache.evictions");
+        invalidations = meterRegistry.counter("order.near-cache.invalidations");
+        Gauge.builder("order.near-cache.size", this, NearCache::size).register(meterRegistry);
+    }
+
+    public SerializedOrder get(Integer orderId) {
+        Entry entry = entries.get(orderId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.order;
+    }
+
+    public long version(Integer orderId) {
+        return versions.get(stripeOf(orderId));
+    }
+
+    public void put(Integer orderId, SerializedOrder order, long versionBeforeFetch) {
+        int stripe = stripeOf(orderId);
+        if (versions.get(stripe) != versionBeforeFetch) {
+            return;
+        }
+        Entry entry = new Entry(orderId, order);
+        entries.put(orderId, entry);
+        // an invalidation bumps the version before it removes: if it slipped in since the first check, its
+        // remove may have run before this put, so the stale entry is taken out again here
+        if (versions.get(stripe) != versionBeforeFetch) {
+            entries.remove(orderId, entry);
+            return;
+        }
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public void invalidate(int orderId) {
+        versions.incrementAndGet(stripeOf(orderId));
+        if (entries.remove(orderId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // CLOCK: a referenced entry loses its bit and is passed over once, an unreferenced one is evicted
+    private void evict() {
+        synchronized (evictionLock) {
+            while (entries.size() > maxSize) {
+                if (!hand.hasNext()) {
+                    hand = entries.values().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Entry entry = hand.next();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entries.remove(entry.orderId, entry)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private int stripeOf(int orderId) {
+        int hash = orderId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private static final class Entry {
+        private final Integer orderId;
+        private final SerializedOrder order;
+        private volatile boolean referenced;
+
+        private Entry(Integer orderId, SerializedOrder order) {
+            this.orderId = orderId;
+            this.order = order;
+        }
+    }
+}
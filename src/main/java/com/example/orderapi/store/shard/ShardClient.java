@@ -0,0 +1,177 @@
+package com.example.orderapi.store.shard;
+
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.store.SerializedOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardClient {
+
+    static final String INTERNAL_PATH = "/internal/orders/";
+    static final String LIST_PATH = "/internal/orders";
+    public static final String SECRET_HEADER = "X-Shard-Secret";
+
+    private static final TypeReference<List<Order>> ORDER_LIST = new TypeReference<>() {
+    };
+
+    @Value("${sharding.request-timeout-ms:2000}")
+    private long requestTimeoutMs;
+
+    // shared by all instances; the internal endpoints reject requests that do not carry it
+    @Value("${sharding.secret:}")
+    private String secret;
+
+    private HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @PostConstruct
+    public void init() {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("sharding.secret must be set: it authenticates the /internal/orders endpoints");
+        }
+        // one client for all peers: it keeps a multiplexed HTTP/2 connection per peer
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(requestTimeoutMs))
+                .build();
+    }
+
+    // the owner's bytes and ETag, so a client sees the same ETag whichever instance it asks
+    public SerializedOrder fetch(String owner, Integer orderId) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(owner + INTERNAL_PATH + orderId))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header(SECRET_HEADER, secret)
+                .GET()
+                .build();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 404) {
+                return null;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Unexpected status " + response.statusCode());
+            }
+            byte[] json = response.body();
+            return new SerializedOrder(objectMapper.readValue(json, Order.class), json, 0,
+                    response.headers().firstValue("ETag").orElse(null));
+        } catch (IOException e) {
+            throw new ShardUnavailableException(owner, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException(owner, e);
+        }
+    }
+
+    public void store(String owner, Integer orderId, Order order) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(owner + INTERNAL_PATH + orderId))
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header(SECRET_HEADER, secret)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(order)))
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("Unexpected status " + response.statusCode());
+            }
+        } catch (IOException e) {
+            throw new ShardUnavailableException(owner, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException(owner, e);
+        }
+    }
+
+    // one page of the member's own orders with the given status, ordered by id
+    public List<Order> findByStatus(String member, OrderStatus status, Integer afterId, int limit) {
+        StringJoiner query = new StringJoiner("&", "?", "").add("status=" + status).add("limit=" + limit);
+        if (afterId != null) {
+            query.add("afterId=" + afterId);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(member + LIST_PATH + query))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header(SECRET_HEADER, secret)
+                .GET()
+                .build();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("Unexpected status " + response.statusCode());
+            }
+            return objectMapper.readValue(response.body(), ORDER_LIST);
+        } catch (IOException e) {
+            throw new ShardUnavailableException(member, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException(member, e);
+        }
+    }
+
+    // the member's own orders as they are read off the NDJSON response; closing the stream closes the connection
+    public Stream<Order> stream(String member, OrderStatus status, Integer fromId, Integer toId) {
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        if (status != null) {
+            query.add("status=" + status);
+        }
+        if (fromId != null) {
+            query.add("fromId=" + fromId);
+        }
+        if (toId != null) {
+            query.add("toId=" + toId);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(member + INTERNAL_PATH + "export" + query))
+                .header(SECRET_HEADER, secret)
+                .GET()
+                .build();
+        try {
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("Unexpected status " + response.statusCode());
+            }
+            return response.body()
+                    .filter(line -> !line.isEmpty())
+                    .map(this::readOrder);
+        } catch (IOException e) {
+            throw new ShardUnavailableException(member, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException(member, e);
+        }
+    }
+
+    public boolean isAuthorized(String presented) {
+        return presented != null && MessageDigest.isEqual(
+                presented.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Order readOrder(String line) {
+        try {
+            return objectMapper.readValue(line, Order.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read exported order " + line, e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.orderapi.store.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardRouter {
+
+    @Value("${sharding.peers:}")
+    private String peers;
+
+    @Value("${sharding.peers-file:}")
+    private String peersFile;
+
+    @Value("${sharding.self-index}")
+    private int selfIndex;
+
+    private List<String> members;
+
+    @PostConstruct
+    public void init() throws IOException {
+        String source = peersFile.isBlank() ? peers : Files.readString(Path.of(peersFile));
+        members = Arrays.stream(source.split("[,\\s]+"))
+                .map(String::trim)
+                .filter(member -> !member.isEmpty())
+                .map(member -> member.endsWith("/") ? member.substring(0, member.length() - 1) : member)
+                .toList();
+
+        if (members.isEmpty() || selfIndex < 0 || selfIndex >= members.size()) {
+            throw new IllegalStateException("sharding.self-index " + selfIndex + " does not match peer list " + members);
+        }
+
+        log.info("Sharding enabled: instance {} of {} ({})", selfIndex, members.size(), members.get(selfIndex));
+    }
+
+    // ownership is independent of which instance consumes an event: events for foreign ids are forwarded
+    public int shardOf(int orderId) {
+        int hash = orderId * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), members.size());
+    }
+
+    public boolean isLocal(int orderId) {
+        return members.size() == 1 || shardOf(orderId) == selfIndex;
+    }
+
+    public String ownerOf(int orderId) {
+        return members.get(shardOf(orderId));
+    }
+
+    // every other instance, for requests that have to cover all shards
+    public List<String> otherMembers() {
+        List<String> others = new ArrayList<>(members);
+        others.remove(selfIndex);
+        return others;
+    }
+}
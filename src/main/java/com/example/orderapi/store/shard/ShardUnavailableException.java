@@ -0,0 +1,8 @@
+package com.example.orderapi.store.shard;
+
+public class ShardUnavailableException extends RuntimeException {
+
+    public ShardUnavailableException(String owner, Throwable cause) {
+        super("Shard owner " + owner + " is unavailable", cause);
+    }
+}
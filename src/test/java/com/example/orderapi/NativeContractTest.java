@@ -0,0 +1,122 @@
+package com.example.orderapi;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Runs the contract suite against the GraalVM native binary (./gradlew nativeContractTest -Pnative)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisabledOnOs(OS.WINDOWS)
+@EnabledIfSystemProperty(named = "native.binary", matches = ".+")
+public class NativeContractTest {
+    private ProtocolTestEnvironment environment;
+    private Process application;
+    private int appPort;
+
+    @BeforeAll
+    void setup() throws Exception {
+        environment = ProtocolTestEnvironment.startFromSystemProperties();
+        System.out.printf("Test setup: receive=%s, send=%s%n", environment.receiveProtocol(), environment.sendProtocol());
+
+        try (ServerSocket socket = new ServerSocket(0)) {
+            appPort = socket.getLocalPort();
+        }
+
+        List<String> command = new ArrayList<>(List.of(
+                System.getProperty("native.binary"),
+                "--server.port=" + appPort,
+                "--receive.protocol=" + environment.receiveProtocol(),
+                "--send.protocol=" + environment.sendProtocol(),
+                "--mqtt.client-id=" + environment.mqttClientId(),
+                "--spring.kafka.bootstrap-servers=" + environment.kafkaBootstrapServers(),
+                "--spring.cloud.aws.endpoint=" + environment.sqsEndpoint(),
+                "--spring.cloud.aws.sqs.endpoint=" + environment.sqsEndpoint(),
+                "--mqtt.broker-url=" + environment.mqttBrokerUrl(),
+                "--spring.artemis.host=" + environment.jmsHost(),
+                "--spring.artemis.port=" + environment.jmsPort(),
+                "--spring.rabbitmq.host=" + environment.rabbitHost(),
+                "--spring.rabbitmq.port=" + environment.rabbitPort()
+        ));
+
+        long startedAt = System.nanoTime();
+        application = new ProcessBuilder(command).inheritIO().start();
+        awaitPort(appPort, TimeUnit.SECONDS.toNanos(60));
+        long startupMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        System.out.printf("Native binary accepting HTTP after %d ms, RSS %s%n", startupMs, residentSetSize(application.pid()));
+    }
+
+    @AfterAll
+    void cleanup() throws Exception {
+        if (application != null) {
+            System.out.printf("Native binary RSS after contract tests: %s%n", residentSetSize(application.pid()));
+            application.destroy();
+            if (!application.waitFor(10, TimeUnit.SECONDS)) {
+                application.destroyForcibly();
+            }
+        }
+        if (environment != null) {
+            environment.stop();
+        }
+    }
+
+    @Test
+    void runContractTest() throws Exception {
+        System.out.printf("Running contract test against native binary for: receive=%s, send=%s%n",
+                environment.receiveProtocol(), environment.sendProtocol());
+
+        Files.createDirectories(new File("./build/reports/specmatic").toPath());
+        Path workspace = AsyncContractTestSupport.createSpecmaticWorkspace(environment, "http://localhost:" + appPort, false);
+
+        SpecmaticExecutor exec = new SpecmaticExecutor(List.of("test"), Map.of(), workspace.toFile());
+        try {
+            exec.start();
+            exec.verifySuccessfulExecutionWithNoFailures();
+        } finally {
+            exec.stop();
+            AsyncContractTestSupport.syncReports(workspace);
+            AsyncContractTestSupport.deleteWorkspace(workspace);
+        }
+    }
+
+    private void awaitPort(int port, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (System.nanoTime() < deadline) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException("Native binary exited with code " + application.exitValue());
+            }
+            try (Socket ignored = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(20);
+            }
+        }
+        throw new IllegalStateException("Native binary did not open port " + port + " in time");
+    }
+
+    private String residentSetSize(long pid) {
+        try {
+            return Files.readAllLines(Path.of("/proc/" + pid + "/status")).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> line.substring("VmRSS:".length()).trim())
+                    .findFirst()
+                    .orElse("unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+}
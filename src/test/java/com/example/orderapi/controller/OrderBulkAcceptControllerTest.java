@@ -0,0 +1,119 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.messaging.protocol.BatchPublishException;
+import com.example.orderapi.messaging.protocol.MessagePublisher;
+import com.example.orderapi.messaging.protocol.OutboundMessage;
+import com.example.orderapi.model.BulkAcceptResult;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.service.BulkOrderAcceptor;
+import com.example.orderapi.service.OrderAggregator;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.service.OrderStateMachine;
+import com.example.orderapi.store.OrderStore;
+import com.example.orderapi.store.OrderTotalsStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderBulkAcceptControllerTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withBean(PartialBatchPublisher.class)
+            .withUserConfiguration(OrderBulkAcceptController.class, BulkOrderAcceptor.class, OrderService.class,
+                    OrderStateMachine.class, OrderStore.class, OrderTotalsStore.class, OrderAggregator.class)
+            .withPropertyValues(
+                    "orders.accept.bulk.max-line-length=100",
+                    "order-lifecycle.enabled=true",
+                    "channel.wip-orders=wip-orders",
+                    "channel.cancelled-orders=cancelled-orders",
+                    "channel.accepted-orders=accepted-orders");
+
+    @Test
+    void reportsTheOutcomeOfEveryLine() {
+        contextRunner.run(context -> {
+            OrderStateMachine stateMachine = context.getBean(OrderStateMachine.class);
+            stateMachine.transition(2, OrderStatus.INITIATED);
+            stateMachine.transition(3, OrderStatus.INITIATED);
+            MockMvc mvc = MockMvcBuilders.standaloneSetup(context.getBean(OrderBulkAcceptController.class)).build();
+
+            String body = String.join("\n",
+                    "{\"id\":1,\"status\":\"ACCEPTED\"}",
+                    "{\"id\":2,\"status\":\"ACCEPTED\"}",
+                    "{\"id\":3,\"status\":\"ACCEPTED\"}",
+                    "",
+                    "{\"id\":",
+                    "{\"id\":1,\"status\":\"ACCEPTED\"}",
+                    "{\"id\":4,\"status\":\"ACCEPTED\",\"timestamp\":\"" + "x".repeat(5_000) + "\"}",
+                    "{\"id\":5}") + "\r\n";
+            MvcResult started = mvc.perform(put("/orders/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String response = mvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            List<BulkAcceptResult> results = new ArrayList<>();
+            for (String line : response.split("\n")) {
+                results.add(objectMapper.readValue(line, BulkAcceptResult.class));
+            }
+            assertThat(results).extracting(BulkAcceptResult::getLine, BulkAcceptResult::getId, BulkAcceptResult::getStatus)
+                    .containsExactly(
+                            tuple(1L, 1, 200),
+                            tuple(2L, 2, 500),
+                            tuple(3L, 3, 202),
+                            tuple(5L, null, 400),
+                            tuple(6L, 1, 409),
+                            tuple(7L, null, 413),
+                            tuple(8L, 5, 400));
+
+            // the failed message is rolled back, the one that may still be published keeps its transition
+            assertThat(stateMachine.statusOf(1)).isEqualTo(OrderStatus.ACCEPTED);
+            assertThat(stateMachine.statusOf(2)).isEqualTo(OrderStatus.INITIATED);
+            assertThat(stateMachine.statusOf(3)).isEqualTo(OrderStatus.ACCEPTED);
+            assertThat(stateMachine.statusOf(4)).isNull();
+        });
+    }
+
+    // fails order 2's message outright and leaves order 3's unacknowledged
+    static class PartialBatchPublisher implements MessagePublisher {
+
+        @Override
+        public void publish(String channel, String message, String correlationId) {
+        }
+
+        @Override
+        public void publishBatch(List<OutboundMessage> messages) {
+            List<Exception> failures = new ArrayList<>();
+            for (OutboundMessage message : messages) {
+                int id;
+                try {
+                    id = objectMapper.readTree(message.getPayload()).get("id").asInt();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                failures.add(id == 2 ? new IllegalStateException("rejected by broker")
+                        : id == 3 ? new TimeoutException("not acknowledged in time") : null);
+            }
+            throw new BatchPublishException("Failed to publish part of the batch", failures);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.messaging.protocol.PendingPublisher;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.service.AsyncOrderAcceptor;
+import com.example.orderapi.service.OrderAggregator;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.service.OrderStateMachine;
+import com.example.orderapi.store.OrderStore;
+import com.example.orderapi.store.OrderTotalsStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderControllerAsyncAcceptTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withBean(PendingPublisher.class)
+            .withUserConfiguration(OrderController.class, AsyncOrderAcceptor.class, OrderService.class,
+                    OrderStateMachine.class, OrderStore.class, OrderTotalsStore.class, OrderAggregator.class)
+            .withPropertyValues(
+                    "orders.accept.async.enabled=true",
+                    "orders.accept.async.max-pending=2",
+                    "orders.accept.async.timeout-ms=200",
+                    "order-lifecycle.enabled=true",
+                    "channel.wip-orders=wip-orders",
+                    "channel.cancelled-orders=cancelled-orders",
+                    "channel.accepted-orders=accepted-orders");
+
+    @Test
+    void answersServiceUnavailableOnceMaxPendingAcceptsAreWaiting() {
+        contextRunner.run(context -> {
+            OrderController controller = context.getBean(OrderController.class);
+            PendingPublisher publisher = context.getBean(PendingPublisher.class);
+
+            CompletableFuture<ResponseEntity<String>> first = controller.updateOrder(update(1));
+            CompletableFuture<ResponseEntity<String>> second = controller.updateOrder(update(2));
+            CompletableFuture<ResponseEntity<String>> third = controller.updateOrder(update(3));
+
+            // the third is turned away at once, without a transition or a publish
+            assertThat(third).isDone();
+            assertThat(third.get().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(publisher.published).hasSize(2);
+            assertThat(context.getBean(OrderStateMachine.class).statusOf(3)).isNull();
+
+            publisher.published.forEach(ack -> ack.complete(null));
+            assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(second.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(controller.updateOrder(update(3))).isNotDone();
+        });
+    }
+
+    @Test
+    void answersAcceptedWhenTheAcknowledgementTimesOut() {
+        contextRunner.run(context -> {
+            OrderController controller = context.getBean(OrderController.class);
+            PendingPublisher publisher = context.getBean(PendingPublisher.class);
+
+            ResponseEntity<String> response = controller.updateOrder(update(1)).get(5, TimeUnit.SECONDS);
+
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+            assertThat(context.getBean(MeterRegistry.class).counter("orders.accept.timed-out").count()).isEqualTo(1);
+            // the publish was not cancelled, and its permit is held until it settles
+            assertThat(publisher.published.get(0)).isNotDone();
+            assertThat(pending(context.getBean(MeterRegistry.class))).isEqualTo(1);
+
+            publisher.published.get(0).complete(null);
+            assertThat(context.getBean(OrderStateMachine.class).statusOf(1)).isEqualTo(OrderStatus.ACCEPTED);
+            assertThat(pending(context.getBean(MeterRegistry.class))).isZero();
+        });
+    }
+
+    @Test
+    void rollsBackTheTransitionWhenThePublishFailsAfterTheTimeout() {
+        contextRunner.run(context -> {
+            OrderController controller = context.getBean(OrderController.class);
+            PendingPublisher publisher = context.getBean(PendingPublisher.class);
+            OrderStateMachine stateMachine = context.getBean(OrderStateMachine.class);
+            stateMachine.transition(1, OrderStatus.INITIATED);
+
+            assertThat(controller.updateOrder(update(1)).get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+            assertThat(stateMachine.statusOf(1)).isEqualTo(OrderStatus.ACCEPTED);
+
+            publisher.published.get(0).completeExceptionally(new IllegalStateException("broker unreachable"));
+
+            assertThat(stateMachine.statusOf(1)).isEqualTo(OrderStatus.INITIATED);
+            assertThat(pending(context.getBean(MeterRegistry.class))).isZero();
+            // so the client's retry is accepted again rather than rejected as a duplicate
+            assertThat(controller.updateOrder(update(1))).isNotDone();
+            assertThat(stateMachine.statusOf(1)).isEqualTo(OrderStatus.ACCEPTED);
+        });
+    }
+
+    private static OrderController.OrderUpdateRequest update(int id) {
+        return new OrderController.OrderUpdateRequest(id, OrderStatus.ACCEPTED, "2024-01-01T00:00:00Z");
+    }
+
+    private static double pending(MeterRegistry meterRegistry) {
+        return meterRegistry.get("orders.accept.pending").gauge().value();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.service.OrderAggregator;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.store.OrderStore;
+import com.example.orderapi.store.OrderTotalsStore;
+import com.example.orderapi.store.shard.ShardClient;
+import com.example.orderapi.store.shard.ShardRouter;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderControllerETagTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withUserConfiguration(OrderController.class, OrderService.class, OrderStore.class, OrderTotalsStore.class, OrderAggregator.class)
+            .withPropertyValues(
+                    "channel.wip-orders=wip-orders",
+                    "channel.cancelled-orders=cancelled-orders",
+                    "channel.accepted-orders=accepted-orders");
+
+    @Test
+    void answersNotModifiedUntilTheOrderChanges() {
+        contextRunner.run(context -> {
+            OrderStore store = context.getBean(OrderStore.class);
+            store.save(1, new Order(1, 10.0, OrderStatus.SHIPPED));
+            MockMvc mvc = mockMvc(context);
+
+            String etag = mvc.perform(get("/orders/1").param("status", "SHIPPED"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mvc.perform(get("/orders/1").param("status", "SHIPPED").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().bytes(new byte[0]));
+
+            store.save(1, new Order(1, 12.0, OrderStatus.SHIPPED));
+            String changed = mvc.perform(get("/orders/1").param("status", "SHIPPED").header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(changed).isNotNull().isNotEqualTo(etag);
+        });
+    }
+
+    @Test
+    void passesOnTheOwnersETagForARemoteOrder() throws IOException {
+        // stands in for the owning instance's /internal/orders/{id}
+        HttpServer owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        owner.createContext("/internal/orders/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] json = ("{\"id\":" + path.substring(path.lastIndexOf('/') + 1) + ",\"totalAmount\":10.0,\"status\":\"SHIPPED\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"owner-3\"");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, json.length);
+            exchange.getResponseBody().write(json);
+            exchange.close();
+        });
+        owner.start();
+        try {
+            contextRunner.withUserConfiguration(ShardRouter.class, ShardClient.class)
+                    .withPropertyValues(
+                            "sharding.enabled=true",
+                            "sharding.peers=http://localhost:1,http://localhost:" + owner.getAddress().getPort(),
+                            "sharding.self-index=0",
+                            "sharding.secret=test")
+                    .run(context -> {
+                        ShardRouter router = context.getBean(ShardRouter.class);
+                        int id = 1;
+                        while (router.isLocal(id)) {
+                            id++;
+                        }
+                        MockMvc mvc = mockMvc(context);
+
+                        mvc.perform(get("/orders/" + id).param("status", "SHIPPED"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("ETag", "\"owner-3\""));
+                        mvc.perform(get("/orders/" + id).param("status", "SHIPPED").header("If-None-Match", "\"owner-3\""))
+                                .andExpect(status().isNotModified());
+                    });
+        } finally {
+            owner.stop(0);
+        }
+    }
+
+    private static MockMvc mockMvc(AssertableApplicationContext context) {
+        return MockMvcBuilders.standaloneSetup(context.getBean(OrderController.class)).build();
+    }
+}
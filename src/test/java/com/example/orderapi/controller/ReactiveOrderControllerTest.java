@@ -0,0 +1,100 @@
+package com.example.orderapi.controller;
+
+import com.example.orderapi.messaging.protocol.PendingPublisher;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.service.BulkOrderAcceptor;
+import com.example.orderapi.service.OrderAggregator;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.service.OrderStateMachine;
+import com.example.orderapi.service.ReactiveOrderService;
+import com.example.orderapi.store.OrderStore;
+import com.example.orderapi.store.OrderTotalsStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveOrderControllerTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withBean(PendingPublisher.class)
+            .withUserConfiguration(ReactiveOrderController.class, ReactiveOrderService.class, OrderService.class, BulkOrderAcceptor.class,
+                    OrderStateMachine.class, OrderStore.class, OrderTotalsStore.class, OrderAggregator.class)
+            .withPropertyValues(
+                    "engine=reactive",
+                    "orders.accept.async.max-pending=1",
+                    "orders.accept.async.timeout-ms=200",
+                    "order-lifecycle.enabled=true",
+                    "channel.wip-orders=wip-orders",
+                    "channel.cancelled-orders=cancelled-orders",
+                    "channel.accepted-orders=accepted-orders");
+
+    @Test
+    void answersOkOnceThePublishIsAcknowledged() {
+        contextRunner.run(context -> {
+            context.getBean(PendingPublisher.class).acknowledging = true;
+
+            update(client(context), 1).expectStatus().isOk()
+                    .expectBody(String.class).isEqualTo("Notification triggered.");
+            update(client(context), 1).expectStatus().isEqualTo(HttpStatus.CONFLICT);
+        });
+    }
+
+    @Test
+    void holdsThePendingSlotUntilATimedOutPublishSettles() {
+        contextRunner.run(context -> {
+            PendingPublisher publisher = context.getBean(PendingPublisher.class);
+            ReactiveOrderService service = context.getBean(ReactiveOrderService.class);
+
+            update(client(context), 1).expectStatus().isAccepted();
+            assertThat(service.pendingAccepts()).isEqualTo(1);
+            // the slot of the first is still taken, so the second is turned away without a transition
+            update(client(context), 2).expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(context.getBean(OrderStateMachine.class).statusOf(2)).isNull();
+
+            publisher.published.get(0).complete(null);
+            assertThat(service.pendingAccepts()).isZero();
+            publisher.acknowledging = true;
+            update(client(context), 2).expectStatus().isOk();
+        });
+    }
+
+    @Test
+    void rollsBackTheTransitionWhenThePublishFailsAfterTheTimeout() {
+        contextRunner.run(context -> {
+            OrderStateMachine stateMachine = context.getBean(OrderStateMachine.class);
+            stateMachine.transition(1, OrderStatus.INITIATED);
+
+            update(client(context), 1).expectStatus().isAccepted();
+            assertThat(stateMachine.statusOf(1)).isEqualTo(OrderStatus.ACCEPTED);
+
+            context.getBean(PendingPublisher.class).published.get(0).completeExceptionally(new IllegalStateException("broker unreachable"));
+
+            assertThat(stateMachine.statusOf(1)).isEqualTo(OrderStatus.INITIATED);
+            assertThat(context.getBean(ReactiveOrderService.class).pendingAccepts()).isZero();
+        });
+    }
+
+    @Test
+    void rejectsInvalidPagesAndRanges() {
+        contextRunner.run(context -> {
+            client(context).get().uri("/orders?status=ACCEPTED&limit=0").exchange().expectStatus().isBadRequest();
+            client(context).get().uri("/orders/export?fromId=5&toId=1").exchange().expectStatus().isBadRequest();
+        });
+    }
+
+    private static WebTestClient client(AssertableApplicationContext context) {
+        return WebTestClient.bindToController(context.getBean(ReactiveOrderController.class)).build();
+    }
+
+    private static WebTestClient.ResponseSpec update(WebTestClient client, int id) {
+        return client.put().uri("/orders")
+                .bodyValue(new OrderController.OrderUpdateRequest(id, OrderStatus.ACCEPTED, "2024-01-01T00:00:00Z"))
+                .exchange();
+    }
+}
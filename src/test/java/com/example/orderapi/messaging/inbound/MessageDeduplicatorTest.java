@@ -0,0 +1,57 @@
+package com.example.orderapi.messaging.inbound;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageDeduplicatorTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(MessageDeduplicator.class)
+            .withPropertyValues(
+                    "inbound.dedup.enabled=true",
+                    "inbound.dedup.window-ms=600000",
+                    "inbound.dedup.recent-set-size=2",
+                    "inbound.dedup.capacity=1024",
+                    "inbound.dedup.bloom-hashes=2");
+
+    @Test
+    void bloomFalsePositiveDoesNotDropNewMessage() {
+        // a 128-bit Bloom filter is saturated by a few hundred fingerprints, so every lookup is a Bloom hit
+        contextRunner.withPropertyValues("inbound.dedup.bloom-bits=128").run(context -> {
+            MessageDeduplicator deduplicator = context.getBean(MessageDeduplicator.class);
+            for (int id = 1; id <= 500; id++) {
+                deduplicator.markProcessed(MessageDeduplicator.fingerprint("new-orders", null, "c-" + id, id));
+            }
+
+            long unseen = MessageDeduplicator.fingerprint("new-orders", null, "c-501", 501);
+            assertThat(deduplicator.isDuplicate(unseen)).isFalse();
+            assertThat(deduplicator.falsePositiveCount()).isPositive();
+            assertThat(deduplicator.duplicateCount()).isZero();
+
+            assertThat(deduplicator.isDuplicate(MessageDeduplicator.fingerprint("new-orders", null, "c-1", 1))).isTrue();
+            assertThat(deduplicator.duplicateCount()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void memoryStaysFlatUnderLongStreamOfUniqueIds() {
+        contextRunner.withPropertyValues("inbound.dedup.bloom-bits=65536").run(context -> {
+            MessageDeduplicator deduplicator = context.getBean(MessageDeduplicator.class);
+            long footprint = deduplicator.footprintBytes();
+
+            for (int id = 1; id <= 200_000; id++) {
+                long fingerprint = MessageDeduplicator.fingerprint("new-orders", "m-" + id, null, id);
+                assertThat(deduplicator.isDuplicate(fingerprint)).isFalse();
+                deduplicator.markProcessed(fingerprint);
+            }
+
+            assertThat(deduplicator.footprintBytes()).isEqualTo(footprint);
+            assertThat(deduplicator.size()).isLessThanOrEqualTo(1024);
+            assertThat(deduplicator.overflowCount()).isEqualTo(200_000 - deduplicator.size());
+            // the fingerprints that did fit are still deduplicated
+            assertThat(deduplicator.isDuplicate(MessageDeduplicator.fingerprint("new-orders", "m-1", null, 1))).isTrue();
+        });
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.orderapi.messaging.listener;
+
+import com.example.orderapi.messaging.protocol.MessagePublisher;
+import com.example.orderapi.messaging.protocol.MessagePublisherDecoratingPostProcessor;
+import com.example.orderapi.model.OrderRequest;
+import com.example.orderapi.service.OrderAggregator;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.store.OrderStore;
+import com.example.orderapi.store.OrderTotalsStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaExactlyOnceListenerTest {
+    private static final String NEW_ORDERS = "eos-new-orders";
+    private static final String WIP_ORDERS = "eos-wip-orders";
+    private static final int ORDERS = 1_000;
+    private static final int CRASH_AT = 750;
+
+    private static EmbeddedKafkaBroker broker;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withBean(ApplicationAvailabilityBean.class)
+            .withBean(TransportPublisher.class)
+            .withUserConfiguration(KafkaExactlyOnceListener.class, MessagePublisherDecoratingPostProcessor.class,
+                    OrderStore.class, OrderTotalsStore.class, OrderAggregator.class)
+            .withPropertyValues(
+                    "kafka.exactly-once.enabled=true",
+                    "receive.protocol=kafka",
+                    "send.protocol=kafka",
+                    "spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                    "spring.kafka.consumer.group-id=eos-test",
+                    // the same id in both runs, as a restarted instance keeps it
+                    "kafka.exactly-once.transactional-id=eos-test-tx",
+                    "kafka.exactly-once.batch-size=100",
+                    "kafka.exactly-once.batch-ms=1000",
+                    "channel.new-orders=" + NEW_ORDERS,
+                    "channel.to-be-cancelled-orders=eos-to-be-cancelled-orders",
+                    "channel.out-for-delivery-orders=eos-out-for-delivery-orders",
+                    "channel.wip-orders=" + WIP_ORDERS,
+                    "channel.cancelled-orders=eos-cancelled-orders",
+                    "channel.accepted-orders=eos-accepted-orders");
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, NEW_ORDERS, WIP_ORDERS)
+                .brokerProperties(Map.of(
+                        "transaction.state.log.replication.factor", "1",
+                        "transaction.state.log.min.isr", "1",
+                        "group.initial.rebalance.delay.ms", "0"));
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void crashMidBatchNeitherLosesNorDuplicatesCommittedOutput() throws Exception {
+        produceNewOrders();
+
+        AtomicBoolean crashed = new AtomicBoolean();
+        contextRunner.withBean(OrderService.class, () -> new CrashingOrderService(id -> id == CRASH_AT && crashed.compareAndSet(false, true)))
+                .run(context -> {
+                    ApplicationAvailability availability = context.getBean(ApplicationAvailability.class);
+                    long deadline = System.currentTimeMillis() + 30_000;
+                    while (availability.getLivenessState() != LivenessState.BROKEN && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(50);
+                    }
+                    assertThat(crashed).isTrue();
+                    // the Error aborted the open batch and stopped the intake instead of leaving it looking healthy
+                    assertThat(availability.getLivenessState()).isEqualTo(LivenessState.BROKEN);
+                    assertThat(context.getBean(KafkaExactlyOnceListener.class).isRunning()).isFalse();
+                });
+
+        List<String> committed = new ArrayList<>();
+        contextRunner.withBean(OrderService.class, () -> new CrashingOrderService(id -> false))
+                .run(context -> committed.addAll(readWipOrders("read_committed", ORDERS)));
+
+        Set<Integer> ids = new HashSet<>();
+        for (String value : committed) {
+            ids.add(objectMapper.readTree(value).get("id").asInt());
+        }
+        assertThat(committed).hasSize(ORDERS);
+        assertThat(ids).hasSize(ORDERS);
+        // the output of the aborted batch is still in the log, just never visible to read_committed consumers
+        assertThat(readWipOrders("read_uncommitted", ORDERS + 1)).hasSizeGreaterThan(ORDERS);
+    }
+
+    @Test
+    void refusesToStartWithoutATransactionalId() {
+        contextRunner.withBean(OrderService.class)
+                .withPropertyValues("kafka.exactly-once.transactional-id=")
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseMessage("kafka.exactly-once.transactional-id must be set, unique per instance and stable across its restarts"));
+    }
+
+    static class CrashingOrderService extends OrderService {
+        private final IntPredicate crashOn;
+
+        CrashingOrderService(IntPredicate crashOn) {
+            this.crashOn = crashOn;
+        }
+
+        @Override
+        public void processNewOrder(OrderRequest orderRequest, String correlationId) {
+            if (crashOn.test(orderRequest.getId())) {
+                // an Error escapes the per-record handling mid-transaction
+                throw new Error("Simulated crash");
+            }
+            super.processNewOrder(orderRequest, correlationId);
+        }
+    }
+
+    // intake output must go to the transactional producer, never to the transport
+    static class TransportPublisher implements MessagePublisher {
+
+        @Override
+        public void publish(String channel, String message, String correlationId) {
+            throw new IllegalStateException("Published outside the transaction");
+        }
+    }
+
+    private void produceNewOrders() {
+        Properties properties = new Properties();
+        properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(properties)) {
+            for (int id = 1; id <= ORDERS; id++) {
+                String payload = "{\"id\":" + id + ",\"orderItems\":[{\"id\":1,\"name\":\"Laptop\",\"quantity\":1,\"price\":1500.0}]}";
+                producer.send(new ProducerRecord<>(NEW_ORDERS, 0, "", payload,
+                        List.of(new RecordHeader("orderCorrelationId", ("c-" + id).getBytes()))));
+            }
+        }
+    }
+
+    private List<String> readWipOrders(String isolationLevel, int expected) {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, isolationLevel);
+
+        List<String> values = new ArrayList<>();
+        TopicPartition partition = new TopicPartition(WIP_ORDERS, 0);
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(properties)) {
+            consumer.assign(List.of(partition));
+            consumer.seekToBeginning(List.of(partition));
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (values.size() < expected && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(200))) {
+                    values.add(record.value());
+                }
+            }
+            // keep reading briefly so anything beyond the expected count would show up
+            for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(500))) {
+                values.add(record.value());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.orderapi.messaging.protocol;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+// A publisher whose asynchronous publishes are acknowledged only when a test completes them,
+// or at once while acknowledging is set
+public class PendingPublisher implements MessagePublisher {
+
+    public final List<CompletableFuture<Void>> published = new CopyOnWriteArrayList<>();
+
+    public volatile boolean acknowledging;
+
+    @Override
+    public void publish(String channel, String message, String correlationId) {
+    }
+
+    @Override
+    public CompletableFuture<Void> publishAsync(String channel, String message, String correlationId, Executor blockingExecutor) {
+        CompletableFuture<Void> ack = acknowledging ? CompletableFuture.completedFuture(null) : new CompletableFuture<>();
+        published.add(ack);
+        return ack;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.orderapi.messaging.reactive;
+
+import com.example.orderapi.messaging.protocol.PendingPublisher;
+import com.example.orderapi.service.BulkOrderAcceptor;
+import com.example.orderapi.service.OrderAggregator;
+import com.example.orderapi.service.OrderService;
+import com.example.orderapi.service.ReactiveOrderService;
+import com.example.orderapi.store.OrderStore;
+import com.example.orderapi.store.OrderTotalsStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveInboundSourceTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withBean(PendingPublisher.class)
+            .withBean(SinkInbound.class)
+            .withUserConfiguration(ReactiveInboundHandler.class, ReactiveOrderService.class, OrderService.class, BulkOrderAcceptor.class,
+                    OrderStore.class, OrderTotalsStore.class, OrderAggregator.class)
+            .withPropertyValues(
+                    "engine=reactive",
+                    "inbound.reactive.stop-timeout-ms=5000",
+                    "channel.new-orders=new-orders",
+                    "channel.to-be-cancelled-orders=to-be-cancelled-orders",
+                    "channel.out-for-delivery-orders=out-for-delivery-orders",
+                    "channel.wip-orders=wip-orders",
+                    "channel.cancelled-orders=cancelled-orders",
+                    "channel.accepted-orders=accepted-orders");
+
+    @Test
+    void acknowledgesAnEventOnlyOnceItsPublishIsAcknowledged() {
+        contextRunner.run(context -> {
+            SinkInbound inbound = context.getBean(SinkInbound.class);
+            PendingPublisher publisher = context.getBean(PendingPublisher.class);
+
+            inbound.events.tryEmitNext(newOrder(1));
+            inbound.events.tryEmitNext(newOrder(2));
+
+            assertThat(publisher.published).hasSize(2);
+            assertThat(inbound.acknowledged).isEmpty();
+
+            publisher.published.get(1).complete(null);
+            assertThat(inbound.acknowledged).containsExactly(newOrder(2));
+
+            // a failed publish is logged and acknowledged, like the listeners do, rather than redelivered forever
+            publisher.published.get(0).completeExceptionally(new IllegalStateException("broker unreachable"));
+            assertThat(inbound.acknowledged).containsExactly(newOrder(2), newOrder(1));
+        });
+    }
+
+    @Test
+    void stopWaitsForEventsInFlightAndLeavesLaterOnesUnacknowledged() {
+        contextRunner.run(context -> {
+            SinkInbound inbound = context.getBean(SinkInbound.class);
+            PendingPublisher publisher = context.getBean(PendingPublisher.class);
+            inbound.events.tryEmitNext(newOrder(1));
+
+            // acknowledged while stop() is waiting for it
+            CompletableFuture<Void> stopped = CompletableFuture.runAsync(inbound::stop);
+            while (!inbound.isStopping()) {
+                Thread.sleep(10);
+            }
+            inbound.events.tryEmitNext(newOrder(2));
+            publisher.published.get(0).complete(null);
+            stopped.get();
+
+            assertThat(inbound.acknowledged).containsExactly(newOrder(1));
+            assertThat(publisher.published).hasSize(1);
+            assertThat(inbound.isRunning()).isFalse();
+        });
+    }
+
+    private static String newOrder(int id) {
+        return "{\"id\":" + id + ",\"orderItems\":[{\"id\":1,\"name\":\"book\",\"quantity\":1,\"price\":10.0}]}";
+    }
+
+    // a transport whose events are emitted by the test and whose acknowledgements are recorded
+    static class SinkInbound extends ReactiveInboundSource {
+        final Sinks.Many<String> events = Sinks.many().unicast().onBackpressureBuffer();
+        final List<String> acknowledged = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected String transport() {
+            return "test";
+        }
+
+        @Override
+        protected Flux<?> receive() {
+            return events.asFlux()
+                    .flatMap(event -> process(newOrdersChannel, event, "correlation",
+                            Mono.fromRunnable(() -> acknowledged.add(event))), concurrency);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.orderapi.messaging.streams;
+
+import com.example.orderapi.controller.OrderStreamsController;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.test.TestRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderStreamsEngineTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(OrderStreamsEngine.class, DriverOnlyEngine::new)
+            .withPropertyValues(
+                    "kafka.streams.enabled=true",
+                    "receive.protocol=kafka",
+                    "send.protocol=kafka",
+                    "spring.kafka.bootstrap-servers=dummy:9092",
+                    "kafka.streams.application-id=order-streams-test",
+                    "kafka.streams.state-dir=" + tempDirectory(),
+                    "channel.new-orders=new-orders",
+                    "channel.wip-orders=wip-orders",
+                    "channel.to-be-cancelled-orders=to-be-cancelled-orders",
+                    "channel.cancelled-orders=cancelled-orders",
+                    "channel.out-for-delivery-orders=out-for-delivery-orders");
+
+    @Test
+    void initiatesNewOrdersWithTheirTotalAndCorrelationId() {
+        contextRunner.run(context -> {
+            try (Topics topics = new Topics(context.getBean(OrderStreamsEngine.class))) {
+                RecordHeaders headers = new RecordHeaders();
+                headers.add(new RecordHeader("orderCorrelationId", "c-1".getBytes()));
+                topics.newOrders.pipeInput(new TestRecord<>("", newOrder(1, 2, 750.0), headers));
+
+                TestRecord<String, String> wip = topics.wipOrders.readRecord();
+                JsonNode order = objectMapper.readTree(wip.value());
+                assertThat(order.get("id").asInt()).isEqualTo(1);
+                assertThat(order.get("totalAmount").asDouble()).isEqualTo(1500.0);
+                assertThat(order.get("status").asText()).isEqualTo("INITIATED");
+                assertThat(new String(wip.headers().lastHeader("orderCorrelationId").value())).isEqualTo("c-1");
+            }
+        });
+    }
+
+    @Test
+    void skipsInvalidNewOrdersWithoutStoppingTheStream() {
+        contextRunner.run(context -> {
+            try (Topics topics = new Topics(context.getBean(OrderStreamsEngine.class))) {
+                topics.newOrders.pipeInput("", "{\"id\":2}");
+                topics.newOrders.pipeInput("", "{\"orderItems\":[]}");
+                topics.newOrders.pipeInput("", "{\"id\":3,\"orderItems\":[{\"id\":1,\"name\":\"Laptop\"}]}");
+                topics.newOrders.pipeInput("", newOrder(4, 1, 50.0));
+
+                assertThat(topics.wipOrders.getQueueSize()).isEqualTo(1);
+                assertThat(objectMapper.readTree(topics.wipOrders.readValue()).get("id").asInt()).isEqualTo(4);
+                KeyValueStore<String, Double> totals = topics.driver.getKeyValueStore(OrderStreamsEngine.TOTALS_STORE);
+                assertThat(totals.get("2")).isNull();
+                assertThat(totals.get("3")).isNull();
+                assertThat(totals.get("4")).isEqualTo(50.0);
+            }
+        });
+    }
+
+    @Test
+    void cancelsOrdersAndSkipsUnreadableRecords() {
+        contextRunner.run(context -> {
+            try (Topics topics = new Topics(context.getBean(OrderStreamsEngine.class))) {
+                topics.cancelOrders.pipeInput("", "not json");
+                topics.cancelOrders.pipeInput("", "{\"id\":7}");
+
+                assertThat(topics.cancelledOrders.getQueueSize()).isEqualTo(1);
+                JsonNode reference = objectMapper.readTree(topics.cancelledOrders.readValue());
+                assertThat(reference.get("reference").asInt()).isEqualTo(7);
+                assertThat(reference.get("status").asText()).isEqualTo("CANCELLED");
+            }
+        });
+    }
+
+    @Test
+    void keepsShippedOrdersInTheQueryableStore() {
+        contextRunner.run(context -> {
+            try (Topics topics = new Topics(context.getBean(OrderStreamsEngine.class))) {
+                topics.newOrders.pipeInput("", newOrder(10, 3, 100.0));
+                topics.deliveries.pipeInput("", delivery(10));
+                topics.deliveries.pipeInput("", delivery(11));
+
+                KeyValueStore<String, String> orders = topics.driver.getKeyValueStore(OrderStreamsEngine.ORDERS_STORE);
+                JsonNode shipped = objectMapper.readTree(orders.get("10"));
+                assertThat(shipped.get("totalAmount").asDouble()).isEqualTo(300.0);
+                assertThat(shipped.get("status").asText()).isEqualTo("SHIPPED");
+                // no new order was seen for 11, so it ships with the default total like OrderService does
+                assertThat(objectMapper.readTree(orders.get("11")).get("totalAmount").asDouble()).isEqualTo(1000.0);
+                assertThat(orders.get("12")).isNull();
+            }
+        });
+    }
+
+    @Test
+    void dropsMovesTheLifecycleDoesNotAllow() {
+        contextRunner.withPropertyValues("order-lifecycle.enabled=true").run(context -> {
+            try (Topics topics = new Topics(context.getBean(OrderStreamsEngine.class))) {
+                topics.newOrders.pipeInput("", newOrder(20, 1, 100.0));
+                topics.cancelOrders.pipeInput("", "{\"id\":20}");
+                topics.deliveries.pipeInput("", delivery(20));
+                topics.newOrders.pipeInput("", newOrder(20, 1, 100.0));
+                topics.newOrders.pipeInput("", newOrder(21, 1, 100.0));
+                topics.deliveries.pipeInput("", delivery(21));
+
+                // the cancelled order neither ships nor is initiated again; the other one ships as before
+                assertThat(topics.wipOrders.readValuesToList()).hasSize(2);
+                assertThat(topics.cancelledOrders.getQueueSize()).isEqualTo(1);
+                KeyValueStore<String, String> orders = topics.driver.getKeyValueStore(OrderStreamsEngine.ORDERS_STORE);
+                assertThat(orders.get("20")).isNull();
+                assertThat(objectMapper.readTree(orders.get("21")).get("status").asText()).isEqualTo("SHIPPED");
+                KeyValueStore<String, String> statuses = topics.driver.getKeyValueStore(OrderStreamsEngine.LIFECYCLE_STORE);
+                assertThat(statuses.get("20")).isEqualTo("CANCELLED");
+            }
+        });
+    }
+
+    @Test
+    void servesPeersOnlyWithTheSharedSecret() {
+        contextRunner.withUserConfiguration(OrderStreamsController.class)
+                .withPropertyValues("kafka.streams.secret=test")
+                .run(context -> {
+                    MockMvc mvc = MockMvcBuilders.standaloneSetup(context.getBean(OrderStreamsController.class)).build();
+
+                    mvc.perform(get("/internal/streams/orders/1")).andExpect(status().isForbidden());
+                    mvc.perform(get("/internal/streams/orders/1").header(OrderStreamsEngine.SECRET_HEADER, "wrong"))
+                            .andExpect(status().isForbidden());
+                    // authorised, but the engine is not running
+                    mvc.perform(get("/internal/streams/orders/1").header(OrderStreamsEngine.SECRET_HEADER, "test"))
+                            .andExpect(status().isServiceUnavailable());
+                });
+    }
+
+    @Test
+    void refusesAnApplicationServerWithoutASecret() {
+        contextRunner.withPropertyValues("kafka.streams.application-server=localhost:9090")
+                .run(context -> assertThat(context).hasFailed());
+    }
+
+    private String newOrder(int id, int quantity, double price) {
+        return "{\"id\":" + id + ",\"orderItems\":[{\"id\":1,\"name\":\"Laptop\",\"quantity\":" + quantity + ",\"price\":" + price + "}]}";
+    }
+
+    private String delivery(int orderId) {
+        return "{\"orderId\":" + orderId + ",\"deliveryAddress\":\"1 Main St\",\"deliveryDate\":\"2025-01-01\"}";
+    }
+
+    private static String tempDirectory() {
+        try {
+            return Files.createTempDirectory("order-streams-test").toString();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create a state directory", e);
+        }
+    }
+
+    // the topology is driven by TopologyTestDriver, so the engine is never started against a broker
+    static class DriverOnlyEngine extends OrderStreamsEngine {
+
+        @Override
+        public boolean isAutoStartup() {
+            return false;
+        }
+    }
+
+    static class Topics implements AutoCloseable {
+        final TopologyTestDriver driver;
+        final TestInputTopic<String, String> newOrders;
+        final TestInputTopic<String, String> cancelOrders;
+        final TestInputTopic<String, String> deliveries;
+        final TestOutputTopic<String, String> wipOrders;
+        final TestOutputTopic<String, String> cancelledOrders;
+
+        Topics(OrderStreamsEngine engine) {
+            driver = new TopologyTestDriver(engine.buildTopology(), engine.streamsProperties());
+            newOrders = driver.createInputTopic("new-orders", new StringSerializer(), new StringSerializer());
+            cancelOrders = driver.createInputTopic("to-be-cancelled-orders", new StringSerializer(), new StringSerializer());
+            deliveries = driver.createInputTopic("out-for-delivery-orders", new StringSerializer(), new StringSerializer());
+            wipOrders = driver.createOutputTopic("wip-orders", new StringDeserializer(), new StringDeserializer());
+            cancelledOrders = driver.createOutputTopic("cancelled-orders", new StringDeserializer(), new StringDeserializer());
+        }
+
+        @Override
+        public void close() {
+            driver.close();
+        }
+    }
+}
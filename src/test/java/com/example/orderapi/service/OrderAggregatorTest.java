@@ -0,0 +1,57 @@
+package com.example.orderapi.service;
+
+import com.example.orderapi.model.OrderAggregate;
+import com.example.orderapi.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderAggregatorTest {
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 2_000;
+    private static final int ROUNDS = 150;
+
+    @Test
+    void totalsStayExactWhileBucketsRollOverConcurrently() throws Exception {
+        OrderAggregator aggregator = new OrderAggregator();
+        long start = 1_000_000_000L;
+        // every round opens a new second, and from round 61 on recycles the bucket of 61 seconds before
+        CyclicBarrier roundStart = new CyclicBarrier(THREADS);
+        CyclicBarrier roundEnd = new CyclicBarrier(THREADS + 1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        roundStart.await();
+                        for (int i = 0; i < PER_THREAD; i++) {
+                            aggregator.record(OrderStatus.INITIATED, 1.25, start + round * 1_000L);
+                        }
+                        roundEnd.await();
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            roundEnd.await();
+            OrderAggregate second = aggregator.snapshot(start + (round + 1) * 1_000L).get("1s").getStatuses().get(OrderStatus.INITIATED);
+            assertThat(second.getCount()).as("round %d", round).isEqualTo((long) THREADS * PER_THREAD);
+            assertThat(second.getAmount()).as("round %d", round).isEqualTo(THREADS * PER_THREAD * 1.25);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        OrderAggregate minute = aggregator.snapshot(start + ROUNDS * 1_000L).get("1m").getStatuses().get(OrderStatus.INITIATED);
+        assertThat(minute.getCount()).isEqualTo(60L * THREADS * PER_THREAD);
+    }
+}
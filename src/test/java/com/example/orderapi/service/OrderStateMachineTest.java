@@ -0,0 +1,63 @@
+package com.example.orderapi.service;
+
+import com.example.orderapi.model.OrderStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStateMachineTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withUserConfiguration(OrderStateMachine.class)
+            .withPropertyValues("order-lifecycle.enabled=true", "order-lifecycle.capacity=1024");
+
+    @Test
+    void rolledBackJournalLetsAbortedRecordsBeReprocessed() {
+        contextRunner.run(context -> {
+            OrderStateMachine stateMachine = context.getBean(OrderStateMachine.class);
+            stateMachine.transition(2, OrderStatus.INITIATED);
+
+            // a transaction that initiates and cancels order 1 and accepts order 2, then aborts
+            stateMachine.openJournal();
+            stateMachine.transition(1, OrderStatus.INITIATED);
+            stateMachine.transition(1, OrderStatus.CANCELLED);
+            stateMachine.transition(2, OrderStatus.ACCEPTED);
+            stateMachine.rollbackJournal();
+            stateMachine.closeJournal();
+
+            assertThat(stateMachine.statusOf(1)).isNull();
+            assertThat(stateMachine.statusOf(2)).isEqualTo(OrderStatus.INITIATED);
+            // without the rollback, the rewound new order would be rejected from CANCELLED
+            assertThat(stateMachine.transition(1, OrderStatus.INITIATED)).isNotSameAs(OrderStateMachine.REJECTED);
+        });
+    }
+
+    @Test
+    void keepsEnforcingPastCapacityByEvictingIdleOrders() {
+        contextRunner.run(context -> {
+            OrderStateMachine stateMachine = context.getBean(OrderStateMachine.class);
+            stateMachine.transition(1, OrderStatus.INITIATED);
+            for (int id = 2; id <= 50_000; id++) {
+                stateMachine.transition(id, OrderStatus.INITIATED);
+                stateMachine.transition(id, OrderStatus.CANCELLED);
+                if (id % 500 == 0) {
+                    // an order that keeps moving survives the rotations
+                    stateMachine.transition(1, OrderStatus.INITIATED);
+                }
+            }
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertThat(meterRegistry.counter("order.lifecycle.untracked").count()).isZero();
+            assertThat(meterRegistry.counter("order.lifecycle.rotations.early").count()).isPositive();
+            assertThat(stateMachine.size()).isLessThanOrEqualTo(2 * 1024);
+            assertThat(stateMachine.transition(50_000, OrderStatus.SHIPPED)).isSameAs(OrderStateMachine.REJECTED);
+            assertThat(stateMachine.statusOf(1)).isEqualTo(OrderStatus.INITIATED);
+            // long idle orders are forgotten and may enter any state again
+            assertThat(stateMachine.statusOf(2)).isNull();
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.orderapi.store;
+
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.store.shard.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderChangelogTest {
+    private static final String TOPIC = "orders-changelog-test";
+    private static final String SKIP_TOPIC = "orders-changelog-skip-test";
+    private static final String SHARD_TOPIC = "orders-changelog-shard-test";
+    private static final int ORDERS = 5_000;
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void restoresLatestStateOfEveryOrderOnStartup() {
+        changelog(TOPIC).run(context -> {
+            OrderChangelog writer = context.getBean(OrderChangelog.class);
+            assertThat(writer.restoredRecords()).isZero();
+            for (int id = 1; id <= ORDERS; id++) {
+                writer.append(id, new Order(id, (double) id, OrderStatus.INITIATED));
+            }
+            for (int id = 1; id <= ORDERS; id += 2) {
+                writer.append(id, new Order(id, (double) id, OrderStatus.SHIPPED));
+            }
+        });
+
+        changelog(TOPIC).run(context -> {
+            OrderStore restoredStore = context.getBean(OrderStore.class);
+            assertThat(restoredStore.size()).isEqualTo(ORDERS);
+            assertThat(restoredStore.get(1).getStatus()).isEqualTo(OrderStatus.SHIPPED);
+            assertThat(restoredStore.get(2).getStatus()).isEqualTo(OrderStatus.INITIATED);
+            assertThat(restoredStore.get(ORDERS).getTotalAmount()).isEqualTo((double) ORDERS);
+            assertThat(restoredStore.findByStatus(OrderStatus.SHIPPED, null, ORDERS)).hasSize(ORDERS / 2);
+        });
+    }
+
+    @Test
+    void skipsRecordsWithoutAnOrderIdKey() {
+        changelog(SKIP_TOPIC).run(context ->
+                context.getBean(OrderChangelog.class).append(1, new Order(1, 1.0, OrderStatus.INITIATED)));
+
+        Properties properties = new Properties();
+        properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(properties)) {
+            String order = "{\"id\":2,\"totalAmount\":2.0,\"status\":\"INITIATED\"}";
+            producer.send(new ProducerRecord<>(SKIP_TOPIC, 0, null, order));
+            producer.send(new ProducerRecord<>(SKIP_TOPIC, 0, "not-a-number", order));
+            producer.send(new ProducerRecord<>(SKIP_TOPIC, 0, "3", "not json"));
+        }
+
+        changelog(SKIP_TOPIC).run(context -> {
+            OrderChangelog reader = context.getBean(OrderChangelog.class);
+            assertThat(context.getBean(OrderStore.class).size()).isEqualTo(1);
+            assertThat(reader.restoredRecords()).isEqualTo(1);
+            assertThat(reader.skippedRecords()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void restoresOnlyTheOrdersThisShardOwns() {
+        changelog(SHARD_TOPIC).run(context -> {
+            OrderChangelog writer = context.getBean(OrderChangelog.class);
+            for (int id = 1; id <= 1000; id++) {
+                writer.append(id, new Order(id, (double) id, OrderStatus.INITIATED));
+            }
+        });
+
+        changelog(SHARD_TOPIC)
+                .withUserConfiguration(ShardRouter.class)
+                .withPropertyValues("sharding.enabled=true", "sharding.peers=http://a:8080,http://b:8080", "sharding.self-index=0")
+                .run(context -> {
+                    ShardRouter router = context.getBean(ShardRouter.class);
+                    OrderStore restoredStore = context.getBean(OrderStore.class);
+                    long owned = IntStream.rangeClosed(1, 1000).filter(router::isLocal).count();
+                    assertThat(owned).isBetween(1L, 999L);
+                    assertThat(restoredStore.size()).isEqualTo((int) owned);
+                    for (int id = 1; id <= 1000; id++) {
+                        assertThat(restoredStore.get(id) != null).isEqualTo(router.isLocal(id));
+                    }
+                });
+    }
+
+    @Test
+    void failsStartupWhenTheBrokerIsUnreachable() {
+        changelog(TOPIC)
+                .withPropertyValues("spring.kafka.bootstrap-servers=localhost:1", "changelog.restore.timeout-ms=2000")
+                .run(context -> {
+                    assertThat(context).hasFailed();
+                    assertThat(context.getStartupFailure()).hasStackTraceContaining("changelog.restore.timeout-ms");
+                });
+    }
+
+    private ApplicationContextRunner changelog(String topic) {
+        return new ApplicationContextRunner()
+                .withBean(SimpleMeterRegistry.class)
+                .withUserConfiguration(OrderStore.class, OrderChangelog.class)
+                .withPropertyValues(
+                        "changelog.enabled=true",
+                        "spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "changelog.topic=" + topic,
+                        "changelog.partitions=4",
+                        "changelog.restore.threads=4",
+                        "changelog.restore.max-poll-records=1000",
+                        "changelog.restore.fetch-bytes=1048576");
+    }
+}
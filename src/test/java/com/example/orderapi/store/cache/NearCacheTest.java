@@ -0,0 +1,44 @@
+package com.example.orderapi.store.cache;
+
+import com.example.orderapi.model.Order;
+import com.example.orderapi.model.OrderStatus;
+import com.example.orderapi.store.SerializedOrder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearCacheTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(SimpleMeterRegistry.class)
+            .withUserConfiguration(NearCache.class)
+            .withPropertyValues("near-cache.enabled=true", "near-cache.max-size=2");
+
+    @Test
+    void invalidatedAndReinsertedIdsDoNotEvictFreshEntries() {
+        contextRunner.run(context -> {
+            NearCache cache = context.getBean(NearCache.class);
+            for (int round = 0; round < 1_000; round++) {
+                put(cache, 1);
+                cache.invalidate(1);
+            }
+            put(cache, 1);
+            put(cache, 2);
+            assertThat(cache.size()).isEqualTo(2);
+
+            // 1 was read last, so 2 is the one evicted
+            cache.get(1);
+            put(cache, 3);
+            assertThat(cache.get(1)).isNotNull();
+            assertThat(cache.get(2)).isNull();
+            assertThat(cache.get(3)).isNotNull();
+        });
+    }
+
+    private void put(NearCache cache, int orderId) {
+        Order order = new Order(orderId, 10.0, OrderStatus.INITIATED);
+        cache.put(orderId, new SerializedOrder(order, new byte[0], 1, "\"1\""), cache.version(orderId));
+    }
+}
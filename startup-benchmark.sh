@@ -0,0 +1,81 @@
+#!/bin/bash
+
+# Startup Benchmark
+# Measures time-to-first-message (JVM start until the first inbound order is processed)
+# for the plain JVM build, the trimmed build (unused transports excluded), AppCDS, and AOT + AppCDS.
+# With NATIVE=1 (needs GraalVM as JAVA_HOME) the native image is built and measured as well.
+# Uses Kafka for both receive and send; start it first with: docker-compose up -d zookeeper kafka
+
+set -e
+
+GREEN='\033[0;32m'
+RED='\033[0;31m'
+NC='\033[0m'
+
+PROTOCOLS="--receive.protocol=kafka --send.protocol=kafka"
+TRIMMED="--startup.exclude-unused-transports=true"
+RESULTS=()
+
+KAFKA_CONTAINER=$(docker ps --filter "label=com.docker.compose.service=kafka" --format '{{.Names}}' | head -n1)
+if [ -z "$KAFKA_CONTAINER" ]; then
+    echo -e "${RED}Kafka container not found. Is docker-compose running?${NC}"
+    exit 1
+fi
+
+# Every run uses a fresh consumer group reading from the earliest offset, so this message is waiting for each of them
+echo "Seeding new-orders..."
+echo '{"id":900,"orderItems":[{"id":1,"name":"Laptop","quantity":1,"price":1500.0}]}' | \
+    docker exec -i "$KAFKA_CONTAINER" kafka-console-producer --bootstrap-server localhost:9092 --topic new-orders
+
+run() {
+    local label="$1"
+    local dir="$2"
+    shift 2
+    local log="$PWD/build/startup-benchmark-$label.log"
+    mkdir -p build
+
+    (cd "$dir" && exec "$@" $PROTOCOLS --server.port=0 \
+        --spring.kafka.consumer.group-id="startup-benchmark-$label-$$" > "$log" 2>&1) &
+    local pid=$!
+
+    for _ in $(seq 1 600); do
+        grep -q "First inbound message processed" "$log" && break
+        sleep 0.2
+    done
+
+    local started ttfm rss
+    started=$(grep -o "Started OrderApiApplication in [0-9.]* seconds" "$log" | grep -o "[0-9.]*" | head -n1)
+    ttfm=$(grep -o "First inbound message processed [0-9]* ms" "$log" | grep -o "[0-9]*" | head -n1)
+    rss=$(ps -o rss= -p "$pid" 2>/dev/null | tr -d ' ')
+
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+
+    RESULTS+=("$(printf "%-12s %12s %22s %10s" "$label" "${started:-?}s" "${ttfm:-timeout} ms" "$((${rss:-0} / 1024)) MB")")
+}
+
+echo -e "${GREEN}Building JVM jar...${NC}"
+./gradlew -q bootJar
+JAR="$PWD/build/libs/specmatic-async-sample-1.0.0.jar"
+run jvm . java -jar "$JAR"
+run trimmed . java -jar "$JAR" $TRIMMED
+
+echo -e "${GREEN}Building AppCDS archive...${NC}"
+./gradlew -q cdsArchive -Preceive.protocol=kafka -Psend.protocol=kafka
+run cds build/cds java -XX:SharedArchiveFile=order-api.jsa -jar order-api.jar $TRIMMED
+
+echo -e "${GREEN}Building AOT + AppCDS archive...${NC}"
+./gradlew -q clean cdsArchive -Paot -Preceive.protocol=kafka -Psend.protocol=kafka
+run aot-cds build/cds java -XX:SharedArchiveFile=order-api.jsa -Dspring.aot.enabled=true -jar order-api.jar $TRIMMED
+
+if [ "$NATIVE" = "1" ]; then
+    echo -e "${GREEN}Building native image...${NC}"
+    ./gradlew -q nativeCompile -Pnative -Preceive.protocol=kafka -Psend.protocol=kafka
+    run native . build/native/nativeCompile/order-api $TRIMMED
+fi
+
+echo ""
+printf "%-12s %12s %22s %10s\n" "mode" "started in" "time to first message" "RSS"
+for row in "${RESULTS[@]}"; do
+    echo "$row"
+done